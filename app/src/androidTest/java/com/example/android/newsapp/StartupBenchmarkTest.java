@@ -0,0 +1,81 @@
+package com.example.android.newsapp;
+
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.example.android.newsapp.core.Histogram;
+import com.example.android.newsapp.core.Metrics;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Launches MainActivity a number of times and reports how long it takes from onCreate to the
+ * first frame and to the loaded feed. The test runs in the app's process, so these are launches
+ * into a running process; scripts/measure-startup.sh measures cold starts.
+ * <p>
+ * The medians are sent as instrumentation status, run with
+ * ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=com.example.android.newsapp.StartupBenchmarkTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmarkTest {
+
+    private static final String LOG_TAG = StartupBenchmarkTest.class.getSimpleName();
+
+    private static final int LAUNCHES = 10;
+
+    /** How long a launch may take to show the loaded feed */
+    private static final long FULL_DISPLAY_TIMEOUT_MILLIS = 15000;
+
+    @Test
+    public void launchMainActivity() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        Metrics metrics = QueryUtils.getMetrics();
+        Histogram initialDisplay = metrics.span("ui.initial_display");
+        Histogram fullDisplay = metrics.span("ui.full_display");
+        long initialBefore = initialDisplay.getCount();
+        long fullBefore = fullDisplay.getCount();
+
+        for (int i = 1; i <= LAUNCHES; i++) {
+            Intent intent = new Intent(Intent.ACTION_MAIN)
+                    .setClass(instrumentation.getTargetContext(), MainActivity.class)
+                    .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+            Activity activity = instrumentation.startActivitySync(intent);
+            awaitCount(fullDisplay, fullBefore + i);
+            activity.finish();
+            instrumentation.waitForIdleSync();
+        }
+        assertEquals(LAUNCHES, initialDisplay.getCount() - initialBefore);
+
+        //The histograms hold every launch of this process, earlier tests' included
+        Bundle results = new Bundle();
+        results.putDouble("initial_display_p50_ms", Metrics.toMillis(initialDisplay.getPercentile(0.5)));
+        results.putDouble("initial_display_max_ms", Metrics.toMillis(initialDisplay.getMax()));
+        results.putDouble("full_display_p50_ms", Metrics.toMillis(fullDisplay.getPercentile(0.5)));
+        results.putDouble("full_display_max_ms", Metrics.toMillis(fullDisplay.getMax()));
+        instrumentation.sendStatus(0, results);
+        Log.i(LOG_TAG, "Startup over " + LAUNCHES + " launches: " + results);
+    }
+
+    /**
+     * Wait until the histogram has recorded the given number of values
+     */
+    private static void awaitCount(Histogram histogram, long count) {
+        long deadline = SystemClock.elapsedRealtime() + FULL_DISPLAY_TIMEOUT_MILLIS;
+        while (histogram.getCount() < count) {
+            if (SystemClock.elapsedRealtime() > deadline) {
+                fail("The feed was not shown within " + FULL_DISPLAY_TIMEOUT_MILLIS + " ms");
+            }
+            SystemClock.sleep(50);
+        }
+    }
+}
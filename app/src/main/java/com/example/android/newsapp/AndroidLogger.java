@@ -0,0 +1,17 @@
+package com.example.android.newsapp;
+
+import android.util.Log;
+
+import com.example.android.newsapp.core.Logger;
+
+/**
+ * Sends the errors of the core library to the Android log
+ */
+
+public class AndroidLogger implements Logger {
+
+    @Override
+    public void e(String tag, String message, Throwable throwable) {
+        Log.e(tag, message, throwable);
+    }
+}
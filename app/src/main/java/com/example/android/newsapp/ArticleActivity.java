@@ -0,0 +1,109 @@
+package com.example.android.newsapp;
+
+import android.app.LoaderManager;
+import android.content.Context;
+import android.content.Intent;
+import android.content.Loader;
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.TextView;
+
+import com.example.android.newsapp.core.News;
+
+/**
+ * In-app reader for one article. The body comes from {@link ArticleBodies}, so an article whose
+ * row was prefetched opens without waiting for the network.
+ */
+
+public class ArticleActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<String> {
+
+    private static final String EXTRA_URL = "url";
+    private static final String EXTRA_TITLE = "title";
+    private static final String EXTRA_SECTION = "section";
+    private static final String EXTRA_DATE = "date";
+    private static final String EXTRA_AUTHOR = "author";
+
+    private static final int BODY_LOADER_ID = 1;
+
+    private String mUrl;
+
+    private TextView mBodyView;
+
+    /**
+     * Returns an intent that opens the given article in the reader
+     */
+    public static Intent newIntent(Context context, News article) {
+        return new Intent(context, ArticleActivity.class)
+                .putExtra(EXTRA_URL, article.getUrl())
+                .putExtra(EXTRA_TITLE, article.getTitle())
+                .putExtra(EXTRA_SECTION, article.getDisplaySection())
+                .putExtra(EXTRA_DATE, article.getDisplayDate())
+                .putExtra(EXTRA_AUTHOR, article.getDisplayAuthor());
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_article);
+
+        Intent intent = getIntent();
+        mUrl = intent.getStringExtra(EXTRA_URL);
+        ((TextView) findViewById(R.id.article_title)).setText(intent.getStringExtra(EXTRA_TITLE));
+        ((TextView) findViewById(R.id.article_section)).setText(intent.getStringExtra(EXTRA_SECTION));
+        ((TextView) findViewById(R.id.article_byline)).setText(
+                getString(R.string.article_byline, intent.getStringExtra(EXTRA_DATE),
+                        intent.getStringExtra(EXTRA_AUTHOR)));
+        mBodyView = (TextView) findViewById(R.id.article_body);
+
+        //A prefetched body is shown right away, otherwise it is loaded in the background
+        String body = ArticleBodies.getInstance(this).getCached(mUrl);
+        if (body != null) {
+            showBody(body);
+        } else {
+            getLoaderManager().initLoader(BODY_LOADER_ID, null, this);
+        }
+    }
+
+    private void showBody(String body) {
+        findViewById(R.id.article_loading_spinner).setVisibility(View.GONE);
+        if (body != null) {
+            mBodyView.setText(body);
+        } else {
+            mBodyView.setText(R.string.article_unavailable);
+        }
+    }
+
+    @Override
+    public Loader<String> onCreateLoader(int id, Bundle args) {
+        return new ArticleBodyLoader(this, mUrl);
+    }
+
+    @Override
+    public void onLoadFinished(Loader<String> loader, String body) {
+        showBody(body);
+    }
+
+    @Override
+    public void onLoaderReset(Loader<String> loader) {
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.article, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_open_in_browser && mUrl != null) {
+            //Send intent to view the news article on guardians website
+            startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(mUrl)));
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+}
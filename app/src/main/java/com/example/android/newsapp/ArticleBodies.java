@@ -0,0 +1,157 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.os.Process;
+import android.util.LruCache;
+
+import com.example.android.newsapp.core.News;
+import com.example.android.newsapp.data.NewsStore;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plain text bodies of articles for the in-app reader, keyed by the article's web URL. Bodies
+ * are kept in a size bounded LRU cache in memory and in the local store, so an article that
+ * was prefetched opens instantly and also without a network connection.
+ */
+
+public final class ArticleBodies {
+
+    /** Memory cache size, bodies are counted at two bytes per character */
+    private static final int MEMORY_CACHE_BYTES = 2 * 1024 * 1024;
+
+    /** Number of bodies kept in the local store, the oldest are dropped first */
+    private static final int MAX_STORED_BODIES = 200;
+
+    /**
+     * Number of prefetches waiting at most. When the list is scrolled on, the rows that
+     * scrolled past are dropped in favor of the new ones.
+     */
+    private static final int PREFETCH_QUEUE_SIZE = 12;
+
+    private static ArticleBodies sInstance;
+
+    private final NewsStore mStore;
+
+    private final LruCache<String, String> mMemoryCache = new LruCache<String, String>(MEMORY_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(String url, String body) {
+            return 2 * body.length();
+        }
+    };
+
+    /** Web URLs queued or being prefetched, so a row is not queued twice */
+    private final Set<String> mPending =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /** One background priority thread, so prefetching never competes with the feed */
+    private final ThreadPoolExecutor mPrefetchExecutor;
+
+    private ArticleBodies(Context context) {
+        mStore = NewsStore.getInstance(context);
+        mPrefetchExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(PREFETCH_QUEUE_SIZE),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        return new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                runnable.run();
+                            }
+                        }, "ArticleBodies");
+                    }
+                },
+                new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable prefetch, ThreadPoolExecutor executor) {
+                        //Drop the oldest queued prefetch to make room
+                        Runnable oldest = executor.getQueue().poll();
+                        if (oldest instanceof Prefetch) {
+                            mPending.remove(((Prefetch) oldest).mUrl);
+                        }
+                        executor.execute(prefetch);
+                    }
+                });
+    }
+
+    /**
+     * Returns the process wide body cache
+     */
+    public static synchronized ArticleBodies getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticleBodies(context);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the body if it is in memory, without any I/O. Safe to call on the main thread.
+     */
+    public String getCached(String articleUrl) {
+        return mMemoryCache.get(articleUrl);
+    }
+
+    /**
+     * Returns the body from memory, the local store or the network, in that order. Returns
+     * null if it is in neither cache and can not be fetched. This does I/O and must be called
+     * off the main thread.
+     */
+    public String load(String articleUrl) {
+        String body = mMemoryCache.get(articleUrl);
+        if (body != null) {
+            return body;
+        }
+        body = mStore.readBody(articleUrl);
+        if (body == null) {
+            String requestUrl = NewsQueries.buildBodyUrl(articleUrl);
+            body = requestUrl != null ? QueryUtils.fetchArticleBody(requestUrl) : null;
+            if (body == null) {
+                return null;
+            }
+            mStore.writeBody(articleUrl, body, System.currentTimeMillis(), MAX_STORED_BODIES);
+        }
+        mMemoryCache.put(articleUrl, body);
+        return body;
+    }
+
+    /**
+     * Queue the bodies of the given articles for loading on the low priority prefetch thread.
+     * Bodies that are in memory or already queued are skipped.
+     */
+    public void prefetch(List<News> articles) {
+        for (News article : articles) {
+            String url = article.getUrl();
+            if (url != null && mMemoryCache.get(url) == null && mPending.add(url)) {
+                mPrefetchExecutor.execute(new Prefetch(url));
+            }
+        }
+    }
+
+    private final class Prefetch implements Runnable {
+
+        private final String mUrl;
+
+        Prefetch(String url) {
+            mUrl = url;
+        }
+
+        @Override
+        public void run() {
+            try {
+                load(mUrl);
+            } finally {
+                mPending.remove(mUrl);
+            }
+        }
+    }
+}
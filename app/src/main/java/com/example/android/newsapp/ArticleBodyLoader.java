@@ -0,0 +1,45 @@
+package com.example.android.newsapp;
+
+import android.content.AsyncTaskLoader;
+import android.content.Context;
+
+/**
+ * Loads the plain text body of one article from {@link ArticleBodies}
+ */
+
+public class ArticleBodyLoader extends AsyncTaskLoader<String> {
+
+    /** Web URL of the article */
+    private String mUrl;
+
+    /** Body that was last delivered, null until it has been loaded */
+    private String mBody;
+
+    public ArticleBodyLoader(Context context, String url) {
+        super(context);
+        mUrl = url;
+    }
+
+    @Override
+    protected void onStartLoading() {
+        if (mBody != null) {
+            deliverResult(mBody);
+        } else {
+            forceLoad();
+        }
+    }
+
+    /** This is on the background thread */
+    @Override
+    public String loadInBackground() {
+        return ArticleBodies.getInstance(getContext()).load(mUrl);
+    }
+
+    @Override
+    public void deliverResult(String body) {
+        mBody = body;
+        if (isStarted()) {
+            super.deliverResult(body);
+        }
+    }
+}
@@ -8,29 +8,58 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
-import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
 import android.preference.PreferenceManager;
+import android.support.v4.os.TraceCompat;
+import android.text.TextUtils;
 import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
-import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
-import android.widget.ListView;
+import android.view.ViewTreeObserver;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
+import com.example.android.newsapp.core.Histogram;
+import com.example.android.newsapp.core.News;
+import com.example.android.newsapp.core.NewsSnapshot;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 public class MainActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<List<News>> {
 
+    private static final String LOG_TAG = MainActivity.class.getSimpleName();
+
+    /**
+     * File the first result page is saved to, so the next start can show it right away
+     */
+    private static final String SNAPSHOT_FILE = "feed.snapshot";
+
     /**
-     * URL for news data from Guardian API
+     * Reads the settings and the snapshot and writes snapshots off the main thread, one at a
+     * time
      */
-    private static final String GUARDIAN_REQUEST_URL = "https://content.guardianapis.com/search";
+    private static final Executor SNAPSHOT_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private static final Histogram sLoadFinishedSpan = QueryUtils.getMetrics().span("ui.load_finished");
+
+    /** From onCreate to the first frame, for every launch of the activity */
+    private static final Histogram sInitialDisplaySpan = QueryUtils.getMetrics().span("ui.initial_display");
+
+    /** From onCreate to the first loaded feed on screen, for every launch of the activity */
+    private static final Histogram sFullDisplaySpan = QueryUtils.getMetrics().span("ui.full_display");
 
     /**
      * Adapter for the list of News objects
@@ -38,125 +67,478 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
     private NewsAdapter mAdapter;
 
     /**
-     * Constant value for the NewsLoader
+     * Constant value for the NewsLoader of the first result page
      */
     private static final int NEWS_LOADER_ID = 1;
 
+    /**
+     * Constant value for the NewsLoader that fetches further result pages while scrolling
+     */
+    private static final int NEWS_PAGE_LOADER_ID = 2;
+
+    /**
+     * Bundle key for the result page a NewsLoader should fetch
+     */
+    private static final String ARG_PAGE = "page";
+
+    /**
+     * Maximum number of result pages kept in the list at once
+     */
+    private static final int MAX_PAGES_IN_MEMORY = 5;
+
+    /**
+     * How many rows before the end of the list the next page is prefetched
+     */
+    private static final int PREFETCH_DISTANCE = 10;
+
+    /**
+     * How many rows below the visible ones get their bodies prefetched
+     */
+    private static final int BODY_PREFETCH_AHEAD = 5;
+
+    /**
+     * How long settings must stay unchanged before the feed follows them, so several changes
+     * in quick succession load once
+     */
+    private static final long PREFERENCE_DEBOUNCE_MILLIS = 500;
+
+    /**
+     * Tracks which result pages are in the list and which one to load next
+     */
+    private NewsPager mPager = new NewsPager(NewsQueries.PAGE_SIZE, MAX_PAGES_IN_MEMORY, PREFETCH_DISTANCE);
+
     /**
      * TextView that is displayed when the list is empty
      */
     private TextView mEmptyStateTextView;
 
+    /**
+     * Identifies the subscribed queries, a snapshot of other queries is not shown. Null until
+     * the settings have been read.
+     */
+    private String mSnapshotKey;
+
+    /**
+     * Identifies what the subscribed queries search for, regardless of their order
+     */
+    private String mQueryKey;
+
+    /** Null until the settings have been read */
+    private SharedPreferences mPreferences;
+
+    /** True once onDestroy was called */
+    private boolean mDestroyed;
+
+    /** System.nanoTime() when onCreate started */
+    private long mCreatedAt;
+
+    /** True once the loader delivered the feed for the first time */
+    private boolean mFullyDrawn;
+
+    private final Handler mHandler = new Handler();
+
+    /**
+     * Applies changed settings to the feed once they stop changing
+     */
+    private final Runnable mApplyPreferences = new Runnable() {
+        @Override
+        public void run() {
+            applyPreferences();
+        }
+    };
+
+    /**
+     * Held in a field, as SharedPreferences only keeps a weak reference to its listeners
+     */
+    private final SharedPreferences.OnSharedPreferenceChangeListener mPreferenceListener =
+            new SharedPreferences.OnSharedPreferenceChangeListener() {
+                @Override
+                public void onSharedPreferenceChanged(SharedPreferences preferences, String key) {
+                    mHandler.removeCallbacks(mApplyPreferences);
+                    mHandler.postDelayed(mApplyPreferences, PREFERENCE_DEBOUNCE_MILLIS);
+                }
+            };
+
     @Override
     public Loader<List<News>> onCreateLoader(int i, Bundle bundle) {
 
-        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(this);
-        String queryTerm = sharedPrefs.getString(
-                getString(R.string.settings_query_term_key),
-                getString(R.string.settings_query_term_default));
+        int page = bundle != null ? bundle.getInt(ARG_PAGE, 1) : 1;
 
-        String orderBy = sharedPrefs.getString(
-                getString(R.string.settings_order_by_key),
-                getString(R.string.settings_order_by_default)
-        );
-
-        Uri baseUri = Uri.parse(GUARDIAN_REQUEST_URL);
-        Uri.Builder uriBuilder = baseUri.buildUpon();
-        uriBuilder.appendQueryParameter("q", queryTerm);
-        uriBuilder.appendQueryParameter("order-by",orderBy);
-        uriBuilder.appendQueryParameter("api-key", "39551a7a-db5c-4688-8765-f48f38d90413");
-        uriBuilder.appendQueryParameter("show-tags", "contributor");
-        Log.e("uriBuilder", uriBuilder.toString());
-        return new NewsLoader(this, uriBuilder.toString());
+        //The loader fetches every subscribed query at the same time and merges the results. It
+        //builds their URLs from the settings on its own thread
+        return new NewsLoader(this, null, page,
+                i == NEWS_LOADER_ID ? NewsLoader.PRIORITY_FEED : NewsLoader.PRIORITY_PAGE);
     }
 
     @Override
     public void onLoadFinished(Loader<List<News>> loader, List<News> articles) {
+        long start = System.nanoTime();
+        showArticles((NewsLoader) loader, articles);
+        sLoadFinishedSpan.recordSince(start);
+    }
+
+    private void showArticles(NewsLoader newsLoader, List<News> articles) {
+        if (newsLoader.getId() == NEWS_PAGE_LOADER_ID) {
+            addPage(newsLoader.getPage(), articles, newsLoader.getPageCount());
+            return;
+        }
+
         //Hide progress bar because data has been loaded
         View loadingIndicator = findViewById(R.id.loading_spinner);
         loadingIndicator.setVisibility(View.GONE);
+        onFullyDrawn();
 
-        //Set empty state text to display message
-        mEmptyStateTextView.setText(R.string.no_results);
+        //Set empty state text to display message, it is only visible if nothing was cached
+        mEmptyStateTextView.setText(isOnline() ? R.string.no_results : R.string.no_internet_connection);
 
-        //Clear adapter of previous news data
-        mAdapter.clear();
-
-        //If there's a valid list of News objects, add them to the adapater set,
-        //will trigger listView to update
+        //If there's a valid list of News objects, hand them to the adapter, which diffs them
+        //against the rows on screen and only updates the ones that changed
         if (articles != null && !articles.isEmpty()) {
-            mAdapter.addAll(articles);
+            mAdapter.submitList(articles);
+            mPager.reset(articles.size(), newsLoader.getPageCount());
+            saveSnapshot(newsLoader.getUrls(), articles, newsLoader.getPageCount());
+            //The top rows are visible before the list is scrolled
+            prefetchBodies(0, BODY_PREFETCH_AHEAD);
+        } else {
+            mAdapter.submitList(null);
+            mPager.reset(0, 0);
         }
+        updateEmptyView();
     }
 
     @Override
     public void onLoaderReset(Loader<List<News>> loader) {
-        //Loader reset to clear out existing data
-        mAdapter.clear();
+        //Loader reset to clear out existing data. Page loaders are reset whenever the next
+        //page is requested, their articles stay in the list
+        if (loader.getId() == NEWS_LOADER_ID) {
+            mAdapter.submitList(null);
+            updateEmptyView();
+        }
+    }
+
+    /**
+     * Tell the system and the startup metrics that the loaded feed is on screen, the first
+     * time the loader delivers
+     */
+    private void onFullyDrawn() {
+        if (mFullyDrawn) {
+            return;
+        }
+        mFullyDrawn = true;
+        sFullDisplaySpan.recordSince(mCreatedAt);
+        NewsApplication.onFullDisplay();
+        //KitKat requires a permission apps can not hold to report this
+        if (Build.VERSION.SDK_INT > Build.VERSION_CODES.KITKAT) {
+            reportFullyDrawn();
+        }
+    }
+
+    /**
+     * Record the first frame once it has been drawn
+     */
+    private void measureInitialDisplay() {
+        final View content = findViewById(android.R.id.content);
+        content.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                content.getViewTreeObserver().removeOnPreDrawListener(this);
+                //The frame is drawn right after this returns, measure once it has been
+                content.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        sInitialDisplaySpan.recordSince(mCreatedAt);
+                        NewsApplication.onInitialDisplay();
+                    }
+                });
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Read the settings and the snapshot of the last run on a background thread, then follow
+     * the settings and show the snapshot on the main thread. The warm-up started loading the
+     * settings when the process started, see NewsApplication.
+     */
+    private void readSettings() {
+        final Context context = getApplicationContext();
+        SNAPSHOT_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
+                final List<String> urls = NewsQueries.buildUrls(context, 1);
+                final String queryKey = TextUtils.join("\n", NewsQueries.buildUrls(context, 1, null));
+                final NewsSnapshot snapshot = readSnapshot(new File(context.getFilesDir(), SNAPSHOT_FILE));
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onSettingsRead(preferences, urls, queryKey, snapshot);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Returns the first result page saved by the last run, or null if there is none. The
+     * snapshot is a few kilobytes mapped into memory.
+     */
+    private static NewsSnapshot readSnapshot(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return NewsSnapshot.read(file, QueryUtils.getStringPool());
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem reading the feed snapshot", e);
+            return null;
+        }
+    }
+
+    /**
+     * Follow changes made in the settings from now on, and show the snapshot of the subscribed
+     * queries until the loader delivers
+     */
+    private void onSettingsRead(SharedPreferences preferences, List<String> urls, String queryKey,
+                                NewsSnapshot snapshot) {
+        if (mDestroyed) {
+            return;
+        }
+        mSnapshotKey = TextUtils.join("\n", urls);
+        mQueryKey = queryKey;
+        mPreferences = preferences;
+        mPreferences.registerOnSharedPreferenceChangeListener(mPreferenceListener);
+
+        //A loader retained from before the settings changed still loads the old queries
+        NewsLoader loader = (NewsLoader) getLoaderManager().<List<News>>getLoader(NEWS_LOADER_ID);
+        if (loader != null && loader.getUrls() != null && !urls.equals(loader.getUrls())) {
+            loader.setUrls(urls);
+        }
+
+        if (mFullyDrawn || snapshot == null || !mSnapshotKey.equals(snapshot.getKey())
+                || snapshot.getArticles().isEmpty()) {
+            return;
+        }
+        findViewById(R.id.loading_spinner).setVisibility(View.GONE);
+        mAdapter.submitList(snapshot.getArticles());
+        mPager.reset(snapshot.getArticles().size(), snapshot.getPageCount());
+        updateEmptyView();
     }
 
+    /**
+     * Point the feed at the queries the settings now ask for. A new order only sorts the
+     * loaded articles again; other changes load the new queries in the running loader, while
+     * the current articles stay on screen.
+     */
+    private void applyPreferences() {
+        List<String> urls = NewsQueries.buildUrls(this, 1);
+        String snapshotKey = TextUtils.join("\n", urls);
+        if (snapshotKey.equals(mSnapshotKey)) {
+            return;
+        }
+        mSnapshotKey = snapshotKey;
+        String queryKey = TextUtils.join("\n", NewsQueries.buildUrls(this, 1, null));
+
+        //Further pages belong to the old queries or order
+        getLoaderManager().destroyLoader(NEWS_PAGE_LOADER_ID);
+        Loader<List<News>> loader = getLoaderManager().getLoader(NEWS_LOADER_ID);
+        if (loader == null) {
+            getLoaderManager().initLoader(NEWS_LOADER_ID, null, this);
+        } else if (queryKey.equals(mQueryKey)) {
+            ((NewsLoader) loader).reorder(urls);
+        } else {
+            ((NewsLoader) loader).setUrls(urls);
+        }
+        mQueryKey = queryKey;
+    }
+
+    /**
+     * Save the first result page for the next start, off the main thread
+     */
+    private void saveSnapshot(List<String> urls, List<News> articles, int pageCount) {
+        final NewsSnapshot snapshot = new NewsSnapshot(TextUtils.join("\n", urls), System.currentTimeMillis(),
+                pageCount, articles);
+        final File file = new File(getFilesDir(), SNAPSHOT_FILE);
+        SNAPSHOT_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    snapshot.writeTo(file);
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Problem writing the feed snapshot", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Show the empty state text only while there are no articles in the list
+     */
+    private void updateEmptyView() {
+        mEmptyStateTextView.setVisibility(mAdapter.getArticles().isEmpty() ? View.VISIBLE : View.GONE);
+    }
+
+    /**
+     * Start loading the next or previous result page if the list is scrolled close to its end
+     */
+    private void loadPageIfNeeded(int firstVisible, int visibleCount, int itemCount) {
+        int page = mPager.nextPageToLoad(firstVisible, firstVisible + visibleCount - 1, itemCount);
+        if (page != 0) {
+            Bundle args = new Bundle();
+            args.putInt(ARG_PAGE, page);
+            getLoaderManager().restartLoader(NEWS_PAGE_LOADER_ID, args, this);
+        }
+    }
+
+    /**
+     * Queue the bodies of the visible rows and the next few for the in-app reader, so opening
+     * one of them does not wait for the network
+     */
+    private void prefetchBodies(int firstVisible, int lastVisible) {
+        List<News> articles = mAdapter.getArticles();
+        if (firstVisible == RecyclerView.NO_POSITION || firstVisible >= articles.size()) {
+            return;
+        }
+        int end = Math.min(articles.size(), lastVisible + 1 + BODY_PREFETCH_AHEAD);
+        ArticleBodies.getInstance(this).prefetch(articles.subList(firstVisible, end));
+    }
+
+    /**
+     * Add a loaded result page to either end of the list without clearing it, then drop the
+     * page at the other end if the list holds too many pages. Only the inserted and removed
+     * rows are dispatched to the RecyclerView, so the rows on screen stay where they are.
+     * Articles already in the list are left out, as results shift between pages while they are
+     * read and the rows are told apart by URL.
+     */
+    private void addPage(int page, List<News> articles, int pageCount) {
+        //Pages that failed, or no longer fit next to the list (e.g. a retained loader
+        //delivering again after a rotation), are not added
+        if (articles == null || articles.isEmpty()) {
+            mPager.onPageFailed();
+            return;
+        }
+
+        List<News> current = mAdapter.getArticles();
+        List<News> added = withoutArticlesIn(current, articles);
+        List<News> updated = new ArrayList<>(current.size() + added.size());
+        if (mPager.isNextPage(page)) {
+            int removed = mPager.onPageAppended(added.size(), articles.size(), pageCount);
+            updated.addAll(current.subList(removed, current.size()));
+            updated.addAll(added);
+        } else if (mPager.isPreviousPage(page)) {
+            int removed = mPager.onPagePrepended(added.size(), pageCount);
+            updated.addAll(added);
+            updated.addAll(current.subList(0, current.size() - removed));
+        } else {
+            mPager.onPageFailed();
+            return;
+        }
+        mAdapter.submitList(updated);
+    }
+
+    /**
+     * Returns the articles of a page whose URL is not in the list yet
+     */
+    private static List<News> withoutArticlesIn(List<News> list, List<News> page) {
+        Set<String> urls = new HashSet<>(list.size() * 2);
+        for (News article : list) {
+            urls.add(article.getUrl());
+        }
+        List<News> added = new ArrayList<>(page.size());
+        for (News article : page) {
+            if (urls.add(article.getUrl())) {
+                added.add(article);
+            }
+        }
+        return added;
+    }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        mCreatedAt = System.nanoTime();
+        TraceCompat.beginSection("MainActivity.onCreate");
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        measureInitialDisplay();
 
-        //Find a reference to the ListView in the layoug
-        ListView newsListView = (ListView) findViewById(R.id.list);
+        //Find a reference to the RecyclerView in the layout
+        RecyclerView newsListView = (RecyclerView) findViewById(R.id.list);
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        newsListView.setLayoutManager(layoutManager);
+        newsListView.setHasFixedSize(true);
 
         mEmptyStateTextView = (TextView) findViewById(R.id.empty_view);
-        newsListView.setEmptyView(mEmptyStateTextView);
 
-        //Create a new ArrayAdapater of news articles
-        mAdapter = new NewsAdapter(this, new ArrayList<News>());
+        //Create a new NewsAdapter, which opens a clicked news article in the in-app reader
+        mAdapter = new NewsAdapter(getLayoutInflater(), new NewsAdapter.OnArticleClickListener() {
+            @Override
+            public void onArticleClick(News currentArticle) {
+                startActivity(ArticleActivity.newIntent(MainActivity.this, currentArticle));
+            }
+        });
 
-        //Set the adapter on the ListView
+        //Set the adapter on the RecyclerView
         newsListView.setAdapter(mAdapter);
 
-        //Set an item click listener on the ListView, which sends intent to a web browser
-        //to open news article on guardians website
-        newsListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+        //Prefetch the next page of results when the list is scrolled near its end
+        newsListView.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
-            public void onItemClick(AdapterView<?> adapterView, View view, int position, long l) {
-                //Find news article that was clicked on
-                News currentArticle = mAdapter.getItem(position);
-                //Convert the string URL into a URI object to pass to the intent constructor
-                Uri newsUri = Uri.parse(currentArticle.getUrl());
-                //Create a new intent to view the news article in a web browser
-                Intent websiteInent = new Intent(Intent.ACTION_VIEW, newsUri);
-                //Send intent to launch the activity
-                startActivity(websiteInent);
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                int firstVisible = layoutManager.findFirstVisibleItemPosition();
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                int itemCount = layoutManager.getItemCount();
+                if (itemCount > 0 && firstVisible != RecyclerView.NO_POSITION) {
+                    loadPageIfNeeded(firstVisible, lastVisible - firstVisible + 1, itemCount);
+                }
+            }
+
+            @Override
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    prefetchBodies(layoutManager.findFirstVisibleItemPosition(),
+                            layoutManager.findLastVisibleItemPosition());
+                }
             }
         });
 
+        //Initialize the loader, pass in the ID constant and null for bundle. It answers from
+        //the local store first, so cached articles show even without a network connection
+        getLoaderManager().initLoader(NEWS_LOADER_ID, null, this);
+
+        //Show the articles of the last run while the loader reads the store, and follow
+        //changes made in the settings without recreating the loader
+        readSettings();
+        TraceCompat.endSection();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mDestroyed = true;
+        if (mPreferences != null) {
+            mPreferences.unregisterOnSharedPreferenceChangeListener(mPreferenceListener);
+        }
+        mHandler.removeCallbacks(mApplyPreferences);
+    }
+
+    /**
+     * Returns true if there is a network connection to fetch data over
+     */
+    private boolean isOnline() {
         //Get a reference to the ConnectivityManager to check state of network connectivity
         ConnectivityManager connMgr = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
 
         //Get details on the currently active default data network
         NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
-
-        //If there is a network connection, fetch data
-        if (networkInfo != null && networkInfo.isConnected()) {
-            //Get a reference to the LoaderManager in order to interact with loaders
-            LoaderManager loaderManager = getLoaderManager();
-
-            //Initialize the loader, pass in the ID constant and null for bundle
-            //Pass in activity for the LoaderCallbacks parameter
-            loaderManager.initLoader(NEWS_LOADER_ID, null, this);
-        } else {
-            //Otherwise display error, hiding the loading spinner so error msg is vislbe
-            View loadingIndicator = findViewById(R.id.loading_spinner);
-            loadingIndicator.setVisibility(View.GONE);
-
-            //Update empty state with error msg
-            mEmptyStateTextView.setText(R.string.no_internet_connection);
-        }
+        return networkInfo != null && networkInfo.isConnected();
     }
 
     @Override
     //method to initialize the contents of the option menu
     public boolean onCreateOptionsMenu (Menu menu) {
         getMenuInflater().inflate(R.menu.main, menu);
+        //The metrics screen is a debugging aid
+        menu.findItem(R.id.action_metrics).setVisible(BuildConfig.DEBUG);
         return true;
     }
 
@@ -167,6 +549,9 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
             Intent settingsIntent = new Intent(this, SettingsActivity.class);
             startActivity(settingsIntent);
             return true;
+        } else if (id == R.id.action_metrics) {
+            startActivity(new Intent(this, MetricsActivity.class));
+            return true;
         }
         return super.onOptionsItemSelected(item);
     }
@@ -0,0 +1,91 @@
+package com.example.android.newsapp;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+
+import com.example.android.newsapp.core.Histogram;
+import com.example.android.newsapp.core.Metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Debug screen listing the timing spans and counters of the load pipeline. The menu shares
+ * them as a JSON dump.
+ */
+
+public class MetricsActivity extends AppCompatActivity {
+
+    private TextView mMetricsView;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+        mMetricsView = (TextView) findViewById(R.id.metrics_text);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        mMetricsView.setText(formatMetrics(QueryUtils.getMetrics()));
+    }
+
+    /**
+     * One line per span with its count and percentiles in milliseconds, then one per counter
+     */
+    private static String formatMetrics(Metrics metrics) {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.US, "%-18s %6s %8s %8s %8s%n", "span (ms)", "count", "p50", "p99", "max"));
+        for (Map.Entry<String, Histogram> entry : metrics.getSpans().entrySet()) {
+            Histogram span = entry.getValue();
+            text.append(String.format(Locale.US, "%-18s %6d %8.2f %8.2f %8.2f%n", entry.getKey(),
+                    span.getCount(),
+                    Metrics.toMillis(span.getPercentile(0.5)),
+                    Metrics.toMillis(span.getPercentile(0.99)),
+                    Metrics.toMillis(span.getMax())));
+        }
+        text.append('\n');
+        for (Map.Entry<String, Long> counter : metrics.getCounters().entrySet()) {
+            text.append(String.format(Locale.US, "%-18s %d%n", counter.getKey(), counter.getValue()));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.metrics, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_export_metrics) {
+            exportMetrics();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    //Share the metrics as JSON, e.g. to attach them to a bug report
+    private void exportMetrics() {
+        StringWriter json = new StringWriter();
+        try {
+            QueryUtils.getMetrics().writeJson(json);
+        } catch (IOException e) {
+            //A StringWriter does not throw
+            throw new AssertionError(e);
+        }
+        Intent shareIntent = new Intent(Intent.ACTION_SEND);
+        shareIntent.setType("application/json");
+        shareIntent.putExtra(Intent.EXTRA_SUBJECT, getString(R.string.metrics_title));
+        shareIntent.putExtra(Intent.EXTRA_TEXT, json.toString());
+        startActivity(Intent.createChooser(shareIntent, getString(R.string.action_export_metrics)));
+    }
+}
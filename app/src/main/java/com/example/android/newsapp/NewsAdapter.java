@@ -1,78 +1,307 @@
 package com.example.android.newsapp;
 
-import android.content.Context;
-import android.support.annotation.NonNull;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
+import android.widget.ImageView;
 import android.widget.TextView;
+
+import com.example.android.newsapp.core.Histogram;
+import com.example.android.newsapp.core.News;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- * Custom adapter to create a new News object and set it in a list view
+ * Custom adapter to show News objects in a RecyclerView. New lists are diffed against the
+ * current one on a background thread, so a refresh only rebinds the rows that were inserted,
+ * moved or changed. Thumbnails are loaded in the background and the load of a row is cancelled
+ * when the row is recycled.
  */
 
-public class NewsAdapter extends ArrayAdapter<News> {
+public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.NewsViewHolder> {
+
+    /** Runs list diffs off the main thread, one at a time */
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
 
-    private static final String TIME_SEPERATOR = "T";
+    private static final Histogram sBindSpan = QueryUtils.getMetrics().span("ui.bind");
+    private static final Histogram sDiffSpan = QueryUtils.getMetrics().span("ui.diff");
 
     /**
-     * Create a new News object
-     * @param context the current context the adapter is being created in
-     * @param articles is the list of News objects to be displayed
+     * Receives clicks on a news article row
      */
+    public interface OnArticleClickListener {
+        void onArticleClick(News article);
+    }
+
+    private final LayoutInflater mInflater;
+
+    private final OnArticleClickListener mClickListener;
+
+    private final Thumbnails mThumbnails;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /** Articles the rows are currently bound to */
+    private List<News> mArticles = Collections.emptyList();
+
+    /** Last list passed to submitList, which may still be being diffed */
+    private List<News> mSubmittedArticles = Collections.emptyList();
+
+    /** Incremented for every submitted list, so a stale diff is never applied */
+    private int mGeneration;
 
-    public NewsAdapter(Context context, List<News> articles) {
-        super(context, 0, articles);
+    /**
+     * Create a new NewsAdapter
+     * @param inflater used to inflate the rows
+     * @param clickListener is notified when an article row is clicked
+     */
+
+    public NewsAdapter(LayoutInflater inflater, OnArticleClickListener clickListener) {
+        mInflater = inflater;
+        mClickListener = clickListener;
+        mThumbnails = Thumbnails.getInstance(inflater.getContext());
+    }
+
+    /**
+     * The text fields of one article row
+     */
+    interface ArticleRow {
+        void setTitle(CharSequence title);
+        void setSection(CharSequence section);
+        void setDate(CharSequence date);
+        void setAuthor(CharSequence author);
+    }
+
+    /**
+     * Copy an article's text into a row. Only precomputed display values are used, so this
+     * runs without allocating while the list scrolls, which NewsAdapterAllocationTest checks.
+     * It is the text half of a bind: the thumbnail is bound separately and allocates a load
+     * when its image is not in memory.
+     */
+    static void bindArticle(News article, ArticleRow row) {
+        row.setTitle(article.getTitle());
+        row.setSection(article.getDisplaySection());
+        row.setDate(article.getDisplayDate());
+        row.setAuthor(article.getDisplayAuthor());
+    }
+
+    /**
+     * Holds the views of one article row, so they are only looked up once per row
+     */
+    class NewsViewHolder extends RecyclerView.ViewHolder
+            implements View.OnClickListener, ArticleRow, Thumbnails.Callback {
+
+        private final TextView mTitleView;
+        private final TextView mSectionView;
+        private final TextView mDateView;
+        private final TextView mAuthorView;
+        private final ImageView mThumbnailView;
+
+        /** Image URL the row shows, null if the article has none */
+        private String mThumbnailUrl;
+
+        /** Load of the thumbnail, null once it finished or if it came from memory */
+        private Future<?> mThumbnailLoad;
+
+        NewsViewHolder(View itemView) {
+            super(itemView);
+            mTitleView = (TextView) itemView.findViewById(R.id.title);
+            mSectionView = (TextView) itemView.findViewById(R.id.section);
+            mDateView = (TextView) itemView.findViewById(R.id.date);
+            mAuthorView = (TextView) itemView.findViewById(R.id.author);
+            mThumbnailView = (ImageView) itemView.findViewById(R.id.thumbnail);
+            itemView.setOnClickListener(this);
+        }
+
+        /**
+         * Show the article's thumbnail from memory, or start loading it and show a placeholder
+         */
+        void bindThumbnail(String url) {
+            cancelThumbnail();
+            mThumbnailUrl = url;
+            if (url == null) {
+                mThumbnailView.setVisibility(View.GONE);
+                return;
+            }
+            mThumbnailView.setVisibility(View.VISIBLE);
+            Bitmap bitmap = mThumbnails.getCached(url);
+            mThumbnailView.setImageBitmap(bitmap);
+            if (bitmap == null) {
+                mThumbnailLoad = mThumbnails.load(url, this);
+            }
+        }
+
+        /**
+         * Stop loading the thumbnail and let go of the bitmap, which stays in the memory cache
+         */
+        void cancelThumbnail() {
+            if (mThumbnailLoad != null) {
+                mThumbnails.cancel(mThumbnailLoad);
+                mThumbnailLoad = null;
+            }
+            mThumbnailUrl = null;
+            mThumbnailView.setImageDrawable(null);
+        }
+
+        @Override
+        public void onThumbnailLoaded(String url, Bitmap bitmap) {
+            //The row may have been bound to another article since the load started
+            if (url.equals(mThumbnailUrl)) {
+                mThumbnailLoad = null;
+                mThumbnailView.setImageBitmap(bitmap);
+            }
+        }
+
+        @Override
+        public void setTitle(CharSequence title) {
+            mTitleView.setText(title);
+        }
+
+        @Override
+        public void setSection(CharSequence section) {
+            mSectionView.setText(section);
+        }
+
+        @Override
+        public void setDate(CharSequence date) {
+            mDateView.setText(date);
+        }
+
+        @Override
+        public void setAuthor(CharSequence author) {
+            mAuthorView.setText(author);
+        }
+
+        @Override
+        public void onClick(View view) {
+            int position = getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                mClickListener.onArticleClick(mArticles.get(position));
+            }
+        }
+    }
+
+    @Override
+    public NewsViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        return new NewsViewHolder(mInflater.inflate(R.layout.news_article, parent, false));
+    }
+
+    @Override
+    public void onBindViewHolder(NewsViewHolder holder, int position) {
+        long start = System.nanoTime();
+        News article = mArticles.get(position);
+        bindArticle(article, holder);
+        holder.bindThumbnail(article.getThumbnailUrl());
+        sBindSpan.recordSince(start);
+    }
+
+    @Override
+    public void onViewRecycled(NewsViewHolder holder) {
+        holder.cancelThumbnail();
     }
 
-    @NonNull
     @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
-        //check if the existing view is being reused, otherwise inflate the view
-        View newsArticleView = convertView;
-        if(newsArticleView == null) {
-            newsArticleView = LayoutInflater.from(getContext()).inflate(R.layout.news_article, parent, false);
+    public int getItemCount() {
+        return mArticles.size();
+    }
+
+    //Get the News object at this position in the list
+    public News getItem(int position) {
+        return mArticles.get(position);
+    }
+
+    /**
+     * Returns the last list passed to {@link #submitList}. Build the next list from this one,
+     * since the rows may still be bound to an older list while a diff is running.
+     */
+    public List<News> getArticles() {
+        return mSubmittedArticles;
+    }
+
+    /**
+     * Show the given list. The difference to the current list is computed on a background
+     * thread and then dispatched as fine grained change notifications on the main thread.
+     * Articles are matched by their URL.
+     */
+    public void submitList(List<News> articles) {
+        final List<News> newArticles = articles != null
+                ? Collections.unmodifiableList(new ArrayList<>(articles))
+                : Collections.<News>emptyList();
+        final List<News> oldArticles = mArticles;
+        final int generation = ++mGeneration;
+        mSubmittedArticles = newArticles;
+
+        //Nothing to diff against, swap the list straight away
+        if (oldArticles.isEmpty() || newArticles.isEmpty()) {
+            mArticles = newArticles;
+            notifyDataSetChanged();
+            return;
+        }
+
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(
+                        new ArticleDiffCallback(oldArticles, newArticles));
+                sDiffSpan.recordSince(start);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        //A newer list was submitted while this one was being diffed
+                        if (generation != mGeneration) {
+                            return;
+                        }
+                        mArticles = newArticles;
+                        result.dispatchUpdatesTo(NewsAdapter.this);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Compares two article lists, treating articles with the same URL as the same row
+     */
+    private static class ArticleDiffCallback extends DiffUtil.Callback {
+
+        private final List<News> mOld;
+        private final List<News> mNew;
+
+        ArticleDiffCallback(List<News> oldArticles, List<News> newArticles) {
+            mOld = oldArticles;
+            mNew = newArticles;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOld.size();
         }
 
-        //Get the News object at this position in the list
-        News currentArticle = getItem(position);
-
-        //Get the title String from the News object and store it in a variable
-        String title = currentArticle.getTitle();
-        //Find the title view
-        TextView titleView = newsArticleView.findViewById(R.id.title);
-        //Set the title string on the Text view
-        titleView.setText(title);
-
-        //Get the section String from the News object and store it in a variable
-        String section = currentArticle.getSection();
-        //Find the section view
-        TextView sectionView = newsArticleView.findViewById(R.id.section);
-        //Set the section string on the TextVeiew
-        sectionView.setText(section);
-
-        //Get the date String from the News object and store it in a variable
-        String date = currentArticle.getDate();
-        String formattedDate;
-        if (date.contains(TIME_SEPERATOR)) {
-            String[] parts = date.split(TIME_SEPERATOR);
-            formattedDate = parts[0];
-        } else formattedDate = date;
-
-        //Find the date view
-        TextView dateView = newsArticleView.findViewById(R.id.date);
-        //Set the date string on the TextView
-        dateView.setText(formattedDate);
-
-        //Get the author string from the News object and store it in a variable
-        String author = currentArticle.getAuthor();
-        TextView authorView = newsArticleView.findViewById(R.id.author);
-        authorView.setText(author);
-
-        //Return the News object containing the 4 textviews so it can be shown on the ListView
-        return newsArticleView;
+        @Override
+        public int getNewListSize() {
+            return mNew.size();
+        }
 
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            String oldUrl = mOld.get(oldPosition).getUrl();
+            return oldUrl != null && oldUrl.equals(mNew.get(newPosition).getUrl());
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return mOld.get(oldPosition).equals(mNew.get(newPosition));
+        }
     }
 }
@@ -0,0 +1,115 @@
+package com.example.android.newsapp;
+
+import android.app.Application;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.preference.PreferenceManager;
+import android.support.v4.os.TraceCompat;
+import android.util.Log;
+
+import com.example.android.newsapp.core.Histogram;
+import com.example.android.newsapp.data.NewsStore;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Starts the work the feed needs on a background thread as soon as the process starts, so it
+ * overlaps with creating the first activity instead of running on the main thread before its
+ * first frame. Also measures how long a cold start takes to show the feed.
+ */
+
+public class NewsApplication extends Application {
+
+    private static final String LOG_TAG = NewsApplication.class.getSimpleName();
+
+    /**
+     * Time this class was loaded in {@link SystemClock#elapsedRealtime()}, the closest to the
+     * process start that is known before Android N
+     */
+    private static final long sClassLoadedAt = SystemClock.elapsedRealtime();
+
+    /** True once the first frame of this process has been measured */
+    private static boolean sInitialDisplayReported;
+
+    /** True once the first loaded feed of this process has been measured */
+    private static boolean sFullDisplayReported;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                warmUp();
+            }
+        }, "WarmUp").start();
+    }
+
+    /**
+     * Do the slow first time work of the feed in the order the main thread needs it
+     */
+    private void warmUp() {
+        TraceCompat.beginSection("NewsApplication.warmUp");
+        try {
+            //Starts reading the preference file, which the feed loader and MainActivity read to
+            //build the query URLs
+            PreferenceManager.getDefaultSharedPreferences(this);
+
+            //Loads the HTTP client and parser classes and sets up the shared client
+            QueryUtils.getMetrics();
+
+            //Opens the database the loader reads first
+            NewsStore.getInstance(this).warmUp();
+
+            //Resolves the API host, so the first request does not wait for DNS
+            try {
+                InetAddress.getByName(Uri.parse(BuildConfig.GUARDIAN_BASE_URL).getHost());
+            } catch (UnknownHostException e) {
+                //Offline, the loader shows the stored articles
+            }
+
+            //Talks to the system's job scheduler, which is an IPC call
+            NewsSyncScheduler.schedule(this);
+        } finally {
+            TraceCompat.endSection();
+        }
+    }
+
+    /**
+     * Record the time from the process start to the first frame of the feed, once per process.
+     * This is on the main thread.
+     */
+    public static void onInitialDisplay() {
+        if (sInitialDisplayReported) {
+            return;
+        }
+        sInitialDisplayReported = true;
+        long millis = SystemClock.elapsedRealtime() - getProcessStartMillis();
+        QueryUtils.getMetrics().span("startup.initial_display").record(millis * 1000000);
+        Log.i(LOG_TAG, "Time to initial display: " + millis + " ms");
+    }
+
+    /**
+     * Record the time from the process start to the first loaded feed on screen, once per
+     * process. This is on the main thread.
+     */
+    public static void onFullDisplay() {
+        if (sFullDisplayReported) {
+            return;
+        }
+        sFullDisplayReported = true;
+        long millis = SystemClock.elapsedRealtime() - getProcessStartMillis();
+        QueryUtils.getMetrics().span("startup.full_display").record(millis * 1000000);
+        Log.i(LOG_TAG, "Time to full display: " + millis + " ms");
+    }
+
+    private static long getProcessStartMillis() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            return Process.getStartElapsedRealtime();
+        }
+        return sClassLoadedAt;
+    }
+}
@@ -2,41 +2,344 @@ package com.example.android.newsapp;
 
 import android.content.AsyncTaskLoader;
 import android.content.Context;
+import android.net.Uri;
+import android.os.Process;
+
+import com.example.android.newsapp.core.Histogram;
+import com.example.android.newsapp.core.MultiQueryFetcher;
+import com.example.android.newsapp.core.News;
+import com.example.android.newsapp.core.NewsQuery;
+import com.example.android.newsapp.core.PriorityExecutor;
+import com.example.android.newsapp.data.NewsStore;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadFactory;
 
 
 /**
- * Loads a list of news articles by using an AsyncTask to perform the network request to the given url
+ * Loads a list of news articles from the given urls. The urls are fetched concurrently and their
+ * articles merged by publication date, dropping duplicates.
+ * Articles cached for the urls are delivered first and revalidated against the network once they
+ * are older than {@link #CACHE_TTL_MILLIS}; a refreshed list is only delivered if it changed.
+ * A search that was never fetched is answered from the full text index over all cached articles.
+ * The urls can be changed while the loader runs, so changed settings do not recreate it. A loader
+ * created without urls builds those of the subscribed queries on its first load, so the settings
+ * are not read on the main thread.
+ * Queries are fetched and parsed on a shared pool that runs the visible feed's queries before
+ * those of further pages; cancelling or resetting the loader cancels its queries.
  */
 
 public class NewsLoader extends AsyncTaskLoader<List<News>> {
 
-    /**Query URL */
-    private String mUrl;
+    /**
+     * How long cached articles are shown without asking the server for a newer list. The
+     * background sync refreshes the store this often, so opening the app normally reads it only.
+     */
+    private static final long CACHE_TTL_MILLIS = NewsSyncScheduler.SYNC_INTERVAL_MILLIS;
+
+    /** How long to wait for the queries of a load before leaving the slow ones out */
+    private static final long QUERY_TIMEOUT_MILLIS = 10000;
+
+    /** Number of queries fetched at the same time, shared by all loaders */
+    private static final int MAX_CONCURRENT_QUERIES = 4;
+
+    /**
+     * Number of queries waiting for the pool at most. When it is full, queued queries of
+     * further pages make room for those of the visible feed.
+     */
+    private static final int MAX_QUEUED_QUERIES = 16;
+
+    /** Priority of the queries of the first page, which is what the user is waiting for */
+    public static final int PRIORITY_FEED = 0;
+
+    /** Priority of the queries of pages loaded ahead while scrolling */
+    public static final int PRIORITY_PAGE = 1;
+
+    private static final MultiQueryFetcher sFetcher = new MultiQueryFetcher(
+            new PriorityExecutor(MAX_CONCURRENT_QUERIES, MAX_QUEUED_QUERIES, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    return new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            //Same as AsyncTask, so fetching never competes with the UI thread
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "NewsFetch");
+                }
+            }),
+            QUERY_TIMEOUT_MILLIS);
+
+    private static final Histogram sLoadSpan = QueryUtils.getMetrics().span("load.total");
+    private static final Histogram sStoreReadSpan = QueryUtils.getMetrics().span("load.store_read");
+    private static final Histogram sMergeSpan = QueryUtils.getMetrics().span("load.merge");
+
+    /**
+     * Query URLs, one per subscribed query term or section. Null until the first load if the
+     * loader was created without urls. Written under mLoadLock.
+     */
+    private volatile List<String> mUrls;
+
+    /** Result page of the queries the urls ask for, starting at 1 */
+    private final int mPage;
+
+    /** Priority of this loader's queries on the shared pool */
+    private final int mPriority;
+
+    /** Total number of result pages, as reported with the last loaded articles */
+    private volatile int mPageCount;
+
+    /** Local store the articles are cached in */
+    private NewsStore mStore;
+
+    /** Articles that were last delivered to the activity */
+    private List<News> mArticles;
+
+    /** True once the local store has been checked for these urls */
+    private volatile boolean mCacheChecked;
+
+    /** True if the articles delivered from the store should be refreshed from the network */
+    private boolean mRevalidate;
+
+    /** Thread running loadInBackground, null between loads. Guarded by mLoadLock */
+    private Thread mLoadThread;
+
+    private final Object mLoadLock = new Object();
 
     /**
      * Constructs a new NewsLoader
      * @param context of the activity
-     * @param url to load data from
+     * @param urls to load data from, or null for those of the subscribed queries
+     * @param page result page the urls ask for, starting at 1
+     * @param priority of the queries, {@link #PRIORITY_FEED} or {@link #PRIORITY_PAGE}
      */
 
-    public NewsLoader(Context context, String url) {
+    public NewsLoader(Context context, List<String> urls, int page, int priority) {
         super(context);
-        mUrl = url;
+        mUrls = urls;
+        mPage = page;
+        mPriority = priority;
+        mStore = NewsStore.getInstance(context);
+    }
+
+    //Get the result page this loader loads
+    public int getPage() {return mPage;}
+
+    //Get the query urls this loader loads, null if it has not built them yet
+    public List<String> getUrls() {return mUrls;}
+
+    //Get the total number of result pages for the query, 0 if unknown
+    public int getPageCount() {return mPageCount;}
+
+    /**
+     * Load the articles of other query urls, keeping the current ones on screen until they
+     * arrive. This is on the main thread.
+     */
+    public void setUrls(List<String> urls) {
+        synchronized (mLoadLock) {
+            mUrls = urls;
+        }
+        mCacheChecked = false;
+        onContentChanged();
+    }
+
+    /**
+     * Show the loaded articles in the order the settings now ask for without loading them
+     * again, and use the given urls, which differ only in their order, from the next refresh on.
+     * This is on the main thread.
+     */
+    public void reorder(List<String> urls) {
+        synchronized (mLoadLock) {
+            mUrls = urls;
+        }
+        if (mArticles == null) {
+            return;
+        }
+        List<News> sorted = NewsQueries.sortLocally(getContext(), mArticles);
+        mArticles = sorted;
+        if (isStarted()) {
+            super.deliverResult(sorted);
+        }
     }
 
     @Override
-    protected void onStartLoading() {onForceLoad();}
+    protected void onStartLoading() {
+        if (mArticles != null) {
+            super.deliverResult(mArticles);
+        }
+        if (takeContentChanged() || mArticles == null) {
+            forceLoad();
+        }
+    }
 
     /** This is on the background thread */
     @Override
     public List<News> loadInBackground() {
-        if (mUrl == null) {
+        long start = System.nanoTime();
+        synchronized (mLoadLock) {
+            mLoadThread = Thread.currentThread();
+        }
+        try {
+            return load();
+        } finally {
+            synchronized (mLoadLock) {
+                mLoadThread = null;
+                //The pool thread is reused, don't leave a late cancel on it
+                Thread.interrupted();
+            }
+            sLoadSpan.recordSince(start);
+        }
+    }
+
+    /**
+     * Stop waiting for the queries, which cancels the ones still queued or running. This is
+     * called when the loader is reset, restarted or loads other urls.
+     */
+    @Override
+    public void cancelLoadInBackground() {
+        synchronized (mLoadLock) {
+            if (mLoadThread != null) {
+                mLoadThread.interrupt();
+            }
+        }
+    }
+
+    private List<News> load() {
+        List<String> urls;
+        synchronized (mLoadLock) {
+            if (mUrls == null) {
+                mUrls = NewsQueries.buildUrls(getContext(), mPage);
+            }
+            urls = mUrls;
+        }
+        if (urls.isEmpty()) {
             return null;
         }
 
-        //Perform network request, parse response, extract a list of news articles
-        List<News> articles = QueryUtils.fetchNewsData(mUrl);
-        return articles;
+        //The first load answers from the local store, if it has every url cached
+        if (!mCacheChecked) {
+            mCacheChecked = true;
+            List<NewsStore.CachedFeed> cachedFeeds = new ArrayList<>(urls.size());
+            boolean stale = false;
+            for (String url : urls) {
+                NewsStore.CachedFeed cached = readCached(url);
+                if (cached == null) {
+                    cachedFeeds = null;
+                    break;
+                }
+                stale |= cached.isOlderThan(CACHE_TTL_MILLIS);
+                cachedFeeds.add(cached);
+            }
+            if (cachedFeeds != null) {
+                mRevalidate = stale;
+                return merge(cachedFeeds);
+            }
+        }
+
+        //Fetch every url at once, a query that fails or times out is left out of the merged list
+        List<Callable<NewsStore.CachedFeed>> fetches = new ArrayList<>(urls.size());
+        for (final String url : urls) {
+            fetches.add(new Callable<NewsStore.CachedFeed>() {
+                @Override
+                public NewsStore.CachedFeed call() throws Exception {
+                    //Offline, a query shows what the background sync stored for it last
+                    NewsStore.CachedFeed feed = QueryUtils.fetchAndStore(mStore, url);
+                    return feed != null ? feed : readCached(url);
+                }
+            });
+        }
+
+        List<NewsStore.CachedFeed> feeds;
+        try {
+            feeds = sFetcher.fetchAll(fetches, mPriority);
+        } catch (InterruptedException e) {
+            //Cancelled, fetchAll cancelled the queries
+            return null;
+        }
+        if (feeds.isEmpty()) {
+            return null;
+        }
+        return merge(feeds);
+    }
+
+    /**
+     * Returns the articles stored for a url. The first page of a search that was never fetched
+     * is answered from the full text index instead, marked as stale so it is fetched as soon as
+     * there is a network. Returns null if neither has any articles.
+     */
+    private NewsStore.CachedFeed readCached(String url) {
+        long start = System.nanoTime();
+        try {
+            return readCachedOrSearch(url);
+        } finally {
+            sStoreReadSpan.recordSince(start);
+        }
+    }
+
+    private NewsStore.CachedFeed readCachedOrSearch(String url) {
+        NewsStore.CachedFeed cached = mStore.read(url);
+        if (cached != null || mPage != 1) {
+            return cached;
+        }
+        String terms = Uri.parse(url).getQueryParameter(NewsQuery.PARAM_QUERY_TERM);
+        if (terms == null) {
+            return null;
+        }
+        List<News> articles = mStore.search(terms, NewsQueries.PAGE_SIZE);
+        if (articles.isEmpty()) {
+            return null;
+        }
+        return new NewsStore.CachedFeed(articles, 1, 0, null, null);
+    }
+
+    /**
+     * Merge the articles of several queries, newest first and without duplicates. There are as
+     * many pages as the query with the most results has.
+     */
+    private List<News> merge(List<NewsStore.CachedFeed> feeds) {
+        long start = System.nanoTime();
+        List<List<News>> articleLists = new ArrayList<>(feeds.size());
+        int pageCount = 0;
+        for (NewsStore.CachedFeed feed : feeds) {
+            articleLists.add(feed.getArticles());
+            pageCount = Math.max(pageCount, feed.getPageCount());
+        }
+        mPageCount = pageCount;
+        List<News> merged = MultiQueryFetcher.merge(articleLists);
+        sMergeSpan.recordSince(start);
+        return merged;
+    }
+
+    /** This is on the main thread */
+    @Override
+    public void deliverResult(List<News> articles) {
+        if (isReset()) {
+            return;
+        }
+
+        //Keep showing the current list if the refresh failed or did not change anything
+        boolean unchanged = mArticles != null && (articles == null || articles.equals(mArticles));
+        if (!unchanged) {
+            mArticles = articles;
+            if (isStarted()) {
+                super.deliverResult(articles);
+            }
+        }
+
+        //Cached articles are on screen, now check the network for a newer list
+        if (mRevalidate) {
+            mRevalidate = false;
+            onContentChanged();
+        }
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        cancelLoad();
+        mArticles = null;
     }
 }
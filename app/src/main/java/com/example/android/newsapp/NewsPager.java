@@ -0,0 +1,161 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Keeps track of which result pages of a query are shown in the list. Pages are loaded one at
+ * a time as the user scrolls towards either end of the list, and once more than a fixed number
+ * of pages are held the page furthest from the new one is dropped again.
+ */
+
+public class NewsPager {
+
+    /** Number of articles requested per page */
+    private final int mPageSize;
+
+    /** Maximum number of pages kept in the list at once */
+    private final int mMaxPages;
+
+    /** How many rows before either end of the list the next page is requested */
+    private final int mPrefetchDistance;
+
+    /**
+     * Number of rows of every page in the list, in list order. A page can have fewer rows than
+     * articles when some of them are already in the list from a neighbouring page.
+     */
+    private final Deque<Integer> mPageSizes = new ArrayDeque<>();
+
+    /** Number of articles the last page in the list came back with, duplicates included */
+    private int mLastPageLoadedCount;
+
+    /** Page number of the first page in the list */
+    private int mFirstPage;
+
+    /** Total number of result pages for the query, 0 if unknown */
+    private int mPageCount;
+
+    /** Page currently being loaded, 0 if none */
+    private int mLoadingPage;
+
+    /**
+     * Create a new NewsPager
+     * @param pageSize is the number of articles requested per page
+     * @param maxPages is the maximum number of pages kept in the list at once
+     * @param prefetchDistance is how many rows before the end of the list the next page is
+     *                         requested
+     */
+
+    public NewsPager(int pageSize, int maxPages, int prefetchDistance) {
+        mPageSize = pageSize;
+        mMaxPages = maxPages;
+        mPrefetchDistance = prefetchDistance;
+    }
+
+    //Get the number of articles requested per page
+    public int getPageSize() {return mPageSize;}
+
+    /**
+     * Start over with the given first page of a query
+     * @param articleCount is the number of articles on the first page
+     * @param pageCount is the total number of result pages, 0 if unknown
+     */
+    public void reset(int articleCount, int pageCount) {
+        mPageSizes.clear();
+        mPageSizes.addLast(articleCount);
+        mLastPageLoadedCount = articleCount;
+        mFirstPage = 1;
+        mPageCount = pageCount;
+        mLoadingPage = 0;
+    }
+
+    /**
+     * Returns the page that should be loaded for the given scroll position, or 0 if none.
+     * The returned page is marked as loading until it is added or reported as failed.
+     */
+    public int nextPageToLoad(int firstVisible, int lastVisible, int itemCount) {
+        if (mLoadingPage != 0 || mPageSizes.isEmpty()) {
+            return 0;
+        }
+        int lastPage = getLastPage();
+        if (lastVisible >= itemCount - mPrefetchDistance && hasPage(lastPage + 1)) {
+            mLoadingPage = lastPage + 1;
+        } else if (firstVisible < mPrefetchDistance && mFirstPage > 1) {
+            mLoadingPage = mFirstPage - 1;
+        }
+        return mLoadingPage;
+    }
+
+    //Returns true if the given page is directly after the last page in the list
+    public boolean isNextPage(int page) {
+        return !mPageSizes.isEmpty() && page == getLastPage() + 1;
+    }
+
+    //Returns true if the given page is directly before the first page in the list
+    public boolean isPreviousPage(int page) {
+        return !mPageSizes.isEmpty() && page == mFirstPage - 1;
+    }
+
+    /**
+     * Record that a page was added after the last page in the list
+     * @param rowCount is the number of rows added for the page
+     * @param loadedCount is the number of articles the page came back with, including those
+     *                    that were not added because they were already in the list
+     * @return how many rows to remove from the top of the list to stay within the page limit
+     */
+    public int onPageAppended(int rowCount, int loadedCount, int pageCount) {
+        mPageSizes.addLast(rowCount);
+        mLastPageLoadedCount = loadedCount;
+        onPageLoaded(pageCount);
+        if (mPageSizes.size() > mMaxPages) {
+            mFirstPage++;
+            return mPageSizes.removeFirst();
+        }
+        return 0;
+    }
+
+    /**
+     * Record that a page was added before the first page in the list
+     * @param rowCount is the number of rows added for the page, without articles that were
+     *                 already in the list
+     * @return how many rows to remove from the bottom of the list to stay within the page limit
+     */
+    public int onPagePrepended(int rowCount, int pageCount) {
+        mPageSizes.addFirst(rowCount);
+        mFirstPage--;
+        onPageLoaded(pageCount);
+        if (mPageSizes.size() > mMaxPages) {
+            //The dropped page follows the new last one, so more pages follow that one
+            mLastPageLoadedCount = mPageSize;
+            return mPageSizes.removeLast();
+        }
+        return 0;
+    }
+
+    //Record that the page being loaded could not be added, so it can be requested again
+    public void onPageFailed() {
+        mLoadingPage = 0;
+    }
+
+    private void onPageLoaded(int pageCount) {
+        mLoadingPage = 0;
+        if (pageCount > 0) {
+            mPageCount = pageCount;
+        }
+    }
+
+    private int getLastPage() {
+        return mFirstPage + mPageSizes.size() - 1;
+    }
+
+    /**
+     * A page exists if it is within the reported page count. If the count is unknown, a page
+     * is assumed to follow as long as the last page came back full.
+     */
+    private boolean hasPage(int page) {
+        if (mPageCount > 0) {
+            return page <= mPageCount;
+        }
+        return mLastPageLoadedCount >= mPageSize;
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.preference.PreferenceManager;
+
+import com.example.android.newsapp.core.MultiQueryFetcher;
+import com.example.android.newsapp.core.News;
+import com.example.android.newsapp.core.NewsQuery;
+import com.example.android.newsapp.core.PublicationDate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Builds the Guardian API request URLs for the queries the user subscribed to in the settings.
+ * The feed and the background sync both build their URLs here, so they share cache entries.
+ */
+
+public final class NewsQueries {
+
+    /**
+     * Root of the Guardian content API, an article's own endpoint is its id below it. Set in
+     * the build, so it can point at a stand-in server.
+     */
+    private static final String GUARDIAN_CONTENT_URL = BuildConfig.GUARDIAN_BASE_URL;
+
+    /**
+     * URL for news data from Guardian API
+     */
+    private static final String GUARDIAN_REQUEST_URL = GUARDIAN_CONTENT_URL + "/search";
+
+    private static final String API_KEY = BuildConfig.GUARDIAN_API_KEY;
+
+    /**
+     * Fields the feed rows show on top of the ones every result carries. The byline is one
+     * short string, where show-tags=contributor sends a whole tag object per contributor.
+     * The thumbnail is the URL of a small image.
+     */
+    private static final String[] FEED_FIELDS = {"byline", "thumbnail"};
+
+    /**
+     * Fields the in-app reader needs
+     */
+    private static final String[] READER_FIELDS = {"bodyText"};
+
+    /**
+     * Separates the query terms the user subscribed to in the query term preference
+     */
+    private static final String QUERY_TERM_SEPARATOR = ",";
+
+    /**
+     * Number of articles requested per result page
+     */
+    public static final int PAGE_SIZE = 20;
+
+    private NewsQueries() {
+    }
+
+    /**
+     * Returns one request URL for every comma separated query term and every selected section,
+     * all asking for the given result page
+     */
+    public static List<String> buildUrls(Context context, int page) {
+        return buildUrls(context, page, getOrderBy(context));
+    }
+
+    /**
+     * Returns the request URLs of the subscribed queries with the given result order, or
+     * without one if it is null. URLs built without an order identify what is searched for.
+     */
+    public static List<String> buildUrls(Context context, int page, String orderBy) {
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+        String queryTerm = getQueryTerm(context);
+
+        Set<String> sections = new TreeSet<>(sharedPrefs.getStringSet(
+                context.getString(R.string.settings_sections_key),
+                Collections.<String>emptySet()));
+
+        //Every comma separated query term and every selected section is its own query
+        List<String> urls = new ArrayList<>();
+        for (String term : queryTerm.split(QUERY_TERM_SEPARATOR)) {
+            if (!term.trim().isEmpty()) {
+                urls.add(newQuery(orderBy, page).queryTerm(term.trim()).build().toUrl());
+            }
+        }
+        for (String section : sections) {
+            urls.add(newQuery(orderBy, page).section(section).build().toUrl());
+        }
+        if (urls.isEmpty()) {
+            urls.add(newQuery(orderBy, page).build().toUrl());
+        }
+        return urls;
+    }
+
+    /**
+     * Returns the given articles, which were already loaded, in the order of the order
+     * preference as far as possible without the API: newest first, or by how many words of the
+     * query terms a title contains and then newest first. The given list is not changed.
+     */
+    public static List<News> sortLocally(Context context, List<News> articles) {
+        List<News> sorted = new ArrayList<>(articles);
+        if (NewsQuery.ORDER_BY_NEWEST.equals(getOrderBy(context))) {
+            Collections.sort(sorted, MultiQueryFetcher.NEWEST_FIRST);
+            return sorted;
+        }
+        Set<String> words = new HashSet<>();
+        String queryTerm = getQueryTerm(context).toLowerCase(Locale.getDefault());
+        for (String word : queryTerm.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+
+        //Score every title once, not in every comparison of the sort
+        List<ScoredNews> scored = new ArrayList<>(sorted.size());
+        for (News article : sorted) {
+            scored.add(new ScoredNews(article, countMatches(article.getTitle(), words)));
+        }
+        Collections.sort(scored, ScoredNews.MOST_MATCHES_FIRST);
+        for (int i = 0; i < scored.size(); i++) {
+            sorted.set(i, scored.get(i).mArticle);
+        }
+        return sorted;
+    }
+
+    /**
+     * Returns how many of the given lower case words the title contains
+     */
+    private static int countMatches(String title, Set<String> words) {
+        title = title.toLowerCase(Locale.getDefault());
+        int matches = 0;
+        for (String word : words) {
+            if (title.contains(word)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * An article along with the number of query words its title contains
+     */
+    private static final class ScoredNews {
+
+        static final Comparator<ScoredNews> MOST_MATCHES_FIRST = new Comparator<ScoredNews>() {
+            @Override
+            public int compare(ScoredNews a, ScoredNews b) {
+                if (a.mMatches != b.mMatches) {
+                    return a.mMatches > b.mMatches ? -1 : 1;
+                }
+                return MultiQueryFetcher.NEWEST_FIRST.compare(a.mArticle, b.mArticle);
+            }
+        };
+
+        final News mArticle;
+        final int mMatches;
+
+        ScoredNews(News article, int matches) {
+            mArticle = article;
+            mMatches = matches;
+        }
+    }
+
+    /**
+     * Returns a URL asking the query at the given URL only for the articles published at or
+     * after the given time, or null if the query cannot be fetched that way. Only the first
+     * page of a newest first query can be: its new articles are the ones published since.
+     */
+    public static String buildDeltaUrl(String url, long sinceMillis) {
+        Uri uri = Uri.parse(url);
+        if (sinceMillis == PublicationDate.UNKNOWN
+                || !NewsQuery.ORDER_BY_NEWEST.equals(uri.getQueryParameter(NewsQuery.PARAM_ORDER_BY))
+                || !"1".equals(uri.getQueryParameter(NewsQuery.PARAM_PAGE))) {
+            return null;
+        }
+        return uri.buildUpon()
+                .appendQueryParameter(NewsQuery.PARAM_FROM_DATE,
+                        PublicationDate.formatTimestamp(sinceMillis))
+                .build()
+                .toString();
+    }
+
+    /**
+     * Returns the request URL for the plain text body of the article at the given web URL, or
+     * null if it is not a Guardian article URL. The content id of an article is the path of
+     * its web URL, so the list does not need to carry it.
+     */
+    public static String buildBodyUrl(String webUrl) {
+        String path = webUrl != null ? Uri.parse(webUrl).getPath() : null;
+        if (path == null || path.length() <= 1) {
+            return null;
+        }
+        return new NewsQuery.Builder(GUARDIAN_CONTENT_URL + Uri.encode(path, "/"))
+                .apiKey(API_KEY)
+                .showFields(READER_FIELDS)
+                .build()
+                .toUrl();
+    }
+
+    private static String getQueryTerm(Context context) {
+        return PreferenceManager.getDefaultSharedPreferences(context).getString(
+                context.getString(R.string.settings_query_term_key),
+                context.getString(R.string.settings_query_term_default));
+    }
+
+    private static String getOrderBy(Context context) {
+        return PreferenceManager.getDefaultSharedPreferences(context).getString(
+                context.getString(R.string.settings_order_by_key),
+                context.getString(R.string.settings_order_by_default));
+    }
+
+    /**
+     * Returns a query builder with the parameters every subscribed query shares
+     */
+    private static NewsQuery.Builder newQuery(String orderBy, int page) {
+        return new NewsQuery.Builder(GUARDIAN_REQUEST_URL)
+                .orderBy(orderBy)
+                .apiKey(API_KEY)
+                .showFields(FEED_FIELDS)
+                .pageSize(PAGE_SIZE)
+                .page(page);
+    }
+}
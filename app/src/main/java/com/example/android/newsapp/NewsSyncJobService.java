@@ -0,0 +1,105 @@
+package com.example.android.newsapp;
+
+import android.annotation.TargetApi;
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.AsyncTask;
+import android.os.BatteryManager;
+import android.os.Build;
+
+import com.example.android.newsapp.data.NewsStore;
+
+import java.util.List;
+
+/**
+ * Refreshes the first result page of every subscribed query into the local store, so the app
+ * opens on fresh articles without waiting for the network. Scheduled by {@link NewsSyncScheduler}.
+ */
+
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class NewsSyncJobService extends JobService {
+
+    /** Battery level in percent below which the sync is skipped on devices without a battery constraint */
+    private static final int LOW_BATTERY_PERCENT = 15;
+
+    private SyncTask mSyncTask;
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        //Before O the job can not require a battery that is not low, so check it here and
+        //leave the refresh to the next period
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O && isBatteryLow()) {
+            return false;
+        }
+        mSyncTask = new SyncTask(params);
+        mSyncTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        //The constraints are no longer met, stop and let the system run the job again later
+        if (mSyncTask != null) {
+            mSyncTask.cancel(true);
+            mSyncTask = null;
+        }
+        return true;
+    }
+
+    /**
+     * Read the last sticky battery broadcast, true if the device is discharging and low
+     */
+    private boolean isBatteryLow() {
+        Intent battery = registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        if (battery == null) {
+            return false;
+        }
+        int status = battery.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        if (status == BatteryManager.BATTERY_STATUS_CHARGING || status == BatteryManager.BATTERY_STATUS_FULL) {
+            return false;
+        }
+        int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        return level >= 0 && scale > 0 && level * 100 < LOW_BATTERY_PERCENT * scale;
+    }
+
+    /**
+     * Fetches the queries one after the other, which is gentler on the radio than the
+     * loader's parallel fetch. The result is true if every query was refreshed.
+     */
+    private class SyncTask extends AsyncTask<Void, Void, Boolean> {
+
+        private final JobParameters mParams;
+
+        SyncTask(JobParameters params) {
+            mParams = params;
+        }
+
+        @Override
+        protected Boolean doInBackground(Void... voids) {
+            NewsStore store = NewsStore.getInstance(NewsSyncJobService.this);
+            List<String> urls = NewsQueries.buildUrls(NewsSyncJobService.this, 1);
+            boolean success = true;
+            for (String url : urls) {
+                if (isCancelled()) {
+                    return false;
+                }
+                try {
+                    success &= QueryUtils.fetchAndStore(store, url) != null;
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }
+            return success;
+        }
+
+        @Override
+        protected void onPostExecute(Boolean success) {
+            mSyncTask = null;
+            //A failed sync is retried with exponential backoff
+            jobFinished(mParams, !success);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.android.newsapp;
+
+import android.annotation.TargetApi;
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Build;
+
+/**
+ * Schedules {@link NewsSyncJobService} to refresh the subscribed queries in the background.
+ * The job only runs on an unmetered network and, where the platform supports it, not while the
+ * battery is low. The system batches it with the jobs of other apps inside its flex window.
+ * Background sync needs JobScheduler, on older devices the loader fetches when the app opens.
+ */
+
+public final class NewsSyncScheduler {
+
+    /** How often the subscribed queries are refreshed */
+    public static final long SYNC_INTERVAL_MILLIS = 30 * 60 * 1000;
+
+    /** Part of the interval the job may be run early in, so it can be batched with other jobs */
+    private static final long SYNC_FLEX_MILLIS = 10 * 60 * 1000;
+
+    /** Delay before the first retry of a failed sync, doubled with every further failure */
+    private static final long INITIAL_BACKOFF_MILLIS = 60 * 1000;
+
+    private static final int SYNC_JOB_ID = 1;
+
+    private NewsSyncScheduler() {
+    }
+
+    /**
+     * Schedule the periodic sync, unless it is already scheduled. The job is persisted, so
+     * calling this whenever the app starts keeps it alive across updates and reboots. This
+     * calls into the system process and is best called off the main thread.
+     */
+    public static void schedule(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return;
+        }
+        scheduleJob(context.getApplicationContext());
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static void scheduleJob(Context context) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        for (JobInfo job : scheduler.getAllPendingJobs()) {
+            if (job.getId() == SYNC_JOB_ID) {
+                return;
+            }
+        }
+
+        JobInfo.Builder builder = new JobInfo.Builder(SYNC_JOB_ID,
+                new ComponentName(context, NewsSyncJobService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setBackoffCriteria(INITIAL_BACKOFF_MILLIS, JobInfo.BACKOFF_POLICY_EXPONENTIAL)
+                .setPersisted(true);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            builder.setPeriodic(SYNC_INTERVAL_MILLIS, SYNC_FLEX_MILLIS);
+        } else {
+            builder.setPeriodic(SYNC_INTERVAL_MILLIS);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            builder.setRequiresBatteryNotLow(true);
+        }
+        scheduler.schedule(builder.build());
+    }
+}
@@ -1,187 +1,208 @@
 package com.example.android.newsapp;
 
-import android.text.TextUtils;
-import android.util.Log;
-
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.nio.charset.Charset;
+import com.example.android.newsapp.core.AdaptiveTimeout;
+import com.example.android.newsapp.core.CircuitBreaker;
+import com.example.android.newsapp.core.Histogram;
+import com.example.android.newsapp.core.Metrics;
+import com.example.android.newsapp.core.MultiQueryFetcher;
+import com.example.android.newsapp.core.News;
+import com.example.android.newsapp.core.NewsClient;
+import com.example.android.newsapp.core.NewsResponse;
+import com.example.android.newsapp.core.RequestCoalescer;
+import com.example.android.newsapp.core.ResilientTransport;
+import com.example.android.newsapp.core.StringPool;
+import com.example.android.newsapp.core.UrlConnectionTransport;
+import com.example.android.newsapp.data.NewsStore;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 /**
- * Helper methods related to requesting and receiving news data from the Guardian APi
+ * Helper methods related to requesting and receiving news data from the Guardian APi.
+ * The work is done by the core library's NewsClient, shared by every loader in the process
+ * so they also share its pooled connections.
  */
 
 public final class QueryUtils {
-    private static final String LOG_TAG = QueryUtils.class.getSimpleName();
 
-    private QueryUtils() {
-    }
+    /** Timing spans and counters of the whole load pipeline, shown by MetricsActivity */
+    private static final Metrics sMetrics = new Metrics();
 
     /**
-     *  Query the Guardian API and return a list of News objects
+     * Maximum number of distinct sections and contributors shared between articles. The API
+     * has a few dozen sections; contributors repeat far less, so the rest is for them.
      */
+    private static final int STRING_POOL_SIZE = 2048;
 
-    public static List<News> fetchNewsData (String requestURL) {
-        //Create URL object
-        URL url = createURL(requestURL);
+    /** Shares the section and contributor strings of parsed and cached articles */
+    private static final StringPool sStringPool = new StringPool(STRING_POOL_SIZE, sMetrics);
 
-        //Perform the HTTP request to URL and receive JSON response back
-        String jsonResponse = null;
-        try {
-            jsonResponse = makeHttpRequest(url);
-        } catch (IOException e) {
-            Log.e(LOG_TAG, "Problem making the HTTP request", e);
-        }
+    /**
+     * Opens after 5 failed attempts in a row and refuses requests for 30 seconds, so loaders
+     * show the stored articles at once while the API is down instead of waiting for timeouts
+     */
+    private static final CircuitBreaker sBreaker = new CircuitBreaker(5, 30000 /*milliseconds*/);
 
-        //Extract relevant fields from the JSON response and create a list of News objects
-        List<News> newsArticles = extractFeaturesFromJson(jsonResponse);
+    private static final NewsClient sClient = new NewsClient(
+            new ResilientTransport(
+                    new UrlConnectionTransport(
+                            new AdaptiveTimeout(5000, 2000, 15000 /*milliseconds*/),
+                            new AdaptiveTimeout(5000, 2000, 10000 /*milliseconds*/)),
+                    sBreaker, sMetrics),
+            new AndroidLogger(), sMetrics, sStringPool);
 
-        //Return the list of News articles
-        return newsArticles;
-    }
+    private static final Histogram sStoreWriteSpan = sMetrics.span("store.write");
 
     /**
-     * Returns new URL object from the given string URL
+     * Fetches in flight in this process, keyed by request URL. Loaders created while an
+     * identical fetch is running, e.g. after a rotation or coming back from the settings,
+     * attach to it instead of sending the same request again.
      */
-    private static URL createURL(String stringUrl) {
-        URL url = null;
-        try {
-            url = new URL(stringUrl);
-        } catch (MalformedURLException e) {
-            Log.e(LOG_TAG, "Problem building the URL ", e);
-        }
-        return url;
+    private static final RequestCoalescer<NewsStore.CachedFeed> sInFlightRequests =
+            new RequestCoalescer<>();
+
+    private QueryUtils() {
     }
 
     /**
-     * Make an HTTP request to the given URL and return a String as the response
+     *  Query the Guardian API and return a list of News objects. The validators of a previous
+     *  response for the same URL may be passed in to make the request conditional; either can be null.
+     *  Returns null if the request failed.
      */
-    private static String makeHttpRequest(URL url) throws IOException {
-        String jsonResponse = "";
-        //If URL is null, then return early
-        if (url == null) {
-            return jsonResponse;
-        }
 
-        HttpURLConnection urlConnection = null;
-        InputStream inputStream = null;
-        try {
-            urlConnection = (HttpURLConnection) url.openConnection();
-            urlConnection.setReadTimeout(10000 /*milliseconds */);
-            urlConnection.setConnectTimeout(15000 /*milliseconds*/);
-            urlConnection.setRequestMethod("GET");
-            urlConnection.connect();
-
-            //If request was successful (code 200) then read input stream and parse response
-            if (urlConnection.getResponseCode() == 200) {
-                inputStream = urlConnection.getInputStream();
-                jsonResponse = readFromStream(inputStream);
-            } else {
-                Log.e(LOG_TAG, "Error response code: " + urlConnection.getResponseCode());
-            }
-        } catch (IOException e) {
-            Log.e(LOG_TAG, "Problem retrieving the news JSON results", e);
-
-        } finally {
-            if (urlConnection != null) {
-                urlConnection.disconnect();
-            }
-            if (inputStream != null) {
-
-                //Closing input stream could throw an IOException, which is why they
-                //makeHttpRequest (URL url) method signature specifies an IOExcpetion could be thrown
-                inputStream.close();
-            }
-        }
-        return jsonResponse;
+    public static NewsResponse fetchNewsData (String requestURL, String eTag, String lastModified) {
+        return sClient.fetch(requestURL, eTag, lastModified);
     }
 
     /**
-     * Convert the InputStream into a String which contains the whole JSON response from the server
+     * Request the plain text body of a single article. Returns null if the request failed.
      */
-    private static String readFromStream(InputStream inputStream) throws IOException {
-        StringBuilder output = new StringBuilder();
-        if (inputStream != null) {
-            InputStreamReader inputStreamReader = new InputStreamReader(inputStream, Charset.forName("UTF-8"));
-            BufferedReader reader = new BufferedReader(inputStreamReader);
-            String line = reader.readLine();
-            while (line != null) {
-                output.append(line);
-                line = reader.readLine();
-            }
-        }
-        return output.toString();
+    public static String fetchArticleBody(String requestURL) {
+        return sClient.fetchBody(requestURL);
     }
 
     /**
-     * Return a list of News objects that has been built up from parsing a JSON response.
+     * Perform a conditional request for one url, parse the response and write the articles to
+     * the store. Returns the fresh or confirmed articles, or null if the request failed.
+     * Identical requests from loaders and the background sync share one fetch.
      */
-    private static List<News> extractFeaturesFromJson(String articleJSON) {
-
-        //If the JSON string is empty or null return early
-        if (TextUtils.isEmpty(articleJSON)) {
+    public static NewsStore.CachedFeed fetchAndStore(final NewsStore store, final String url)
+            throws InterruptedException {
+        try {
+            return sInFlightRequests.execute(url, new Callable<NewsStore.CachedFeed>() {
+                @Override
+                public NewsStore.CachedFeed call() {
+                    return fetchUrl(store, url);
+                }
+            });
+        } catch (ExecutionException e) {
             return null;
         }
+    }
 
-        // Create an empty ArrayList that we can start adding news articles to
-        List<News> articles = new ArrayList<>();
-
-        // Try to parse the JSON response string. If there's a problem with the way the JSON
-        // is formatted, a JSONException exception object will be thrown.
-        // Catch the exception so the app doesn't crash, and print the error message to the logs.
-        try {
-
-            //Create a JSONObject from the JSON response string
-            JSONObject baseJsonResponse = new JSONObject(articleJSON);
-
-            //Extract the JSONObject associated with the key called "response"
-            JSONObject response = baseJsonResponse.getJSONObject("response");
-
-            //Extract the JSONArray associated with the key called "results"
-            JSONArray articleArray = response.getJSONArray("results");
+    private static NewsStore.CachedFeed fetchUrl(NewsStore store, String url) {
+        NewsStore.CachedFeed cached = store.read(url);
 
+        //A whole cached first page of newest articles only needs what was published since
+        String deltaUrl = cached != null && cached.getFetchedAt() > 0
+                ? NewsQueries.buildDeltaUrl(url, cached.getNewestPublishedMillis()) : null;
+        if (deltaUrl != null) {
+            return fetchDelta(store, url, deltaUrl, cached);
+        }
 
-            //For each news article Object in the articleArray, create a News object
-            for (int i = 0; i < articleArray.length(); i++) {
-                JSONObject currentArticle = articleArray.getJSONObject(i);
+        String eTag = cached != null ? cached.getETag() : null;
+        String lastModified = cached != null ? cached.getLastModified() : null;
+        NewsResponse response = fetchNewsData(url, eTag, lastModified);
+        if (response == null) {
+            return null;
+        }
 
-                //Extract the data from the JSONObject
-                String title = currentArticle.getString("webTitle");
+        long now = System.currentTimeMillis();
+        if (response.isNotModified()) {
+            //Server confirmed the cached articles, reuse the last parsed list
+            if (cached != null) {
+                store.touch(url, now);
+            }
+            return cached;
+        }
 
-                //Get JSON Array tags from within results object
-                JSONArray tagsArray = currentArticle.getJSONArray("tags");
-                JSONObject currentTags = tagsArray.getJSONObject(0);
-                String author = currentTags.getString("webTitle");
+        //Part of a page that broke off is shown, but stored as already stale so the next
+        //load fetches the whole page again
+        long fetchedAt = response.isTruncated() ? 0 : now;
+        List<News> articles = response.getArticles();
+        long start = System.nanoTime();
+        store.write(url, articles, response.getPageCount(), fetchedAt,
+                response.getETag(), response.getLastModified());
+        sStoreWriteSpan.recordSince(start);
+        return new NewsStore.CachedFeed(articles, response.getPageCount(), fetchedAt,
+                response.getETag(), response.getLastModified());
+    }
 
-                String section = currentArticle.getString("sectionName");
-                String date = currentArticle.getString("webPublicationDate");
-                String url = currentArticle.getString("webUrl");
+    /**
+     * Fetch the articles published since the newest cached one and put them in front of the
+     * cached page, which keeps its size. Returns null if the request failed or broke off, as
+     * part of the new articles could leave a gap between them and the cached ones.
+     */
+    private static NewsStore.CachedFeed fetchDelta(NewsStore store, String url, String deltaUrl,
+                                                   NewsStore.CachedFeed cached) {
+        //The validators belong to the full page, not to this request
+        NewsResponse response = fetchNewsData(deltaUrl, null, null);
+        if (response == null || response.isTruncated()) {
+            return null;
+        }
 
-                //Create a new News object with this data and add it to the articles array
-                News article = new News(title, section, date, author, url);
-                articles.add(article);
-            }
+        long now = System.currentTimeMillis();
+        NewsStore.CachedFeed updated = mergeDelta(cached, response.getArticles(),
+                response.getPageCount(), now);
+        if (updated == cached) {
+            store.touch(url, now);
+            return cached;
+        }
+        long start = System.nanoTime();
+        store.write(url, updated.getArticles(), updated.getPageCount(), updated.getFetchedAt(),
+                updated.getETag(), updated.getLastModified());
+        sStoreWriteSpan.recordSince(start);
+        return updated;
+    }
 
-        } catch (JSONException e) {
-            // If an error is thrown when executing any of the above statements in the "try" block,
-            // catch the exception here, so the app doesn't crash. Print a log message
-            // with the message from the exception.
-            Log.e("QueryUtils", "Problem parsing the Guardian API JSON results", e);
+    /**
+     * Returns the cached page with the articles of a delta request in front of it, or the
+     * cached feed itself if they changed nothing. The result has no validators, as it is not
+     * what the server would send for the page's URL.
+     * @param articles published since the newest cached article, and that one article
+     * @param pageCount of the delta request, more than one if the new articles fill a page
+     * @param now is the time the delta was fetched, in epoch millis
+     */
+    static NewsStore.CachedFeed mergeDelta(NewsStore.CachedFeed cached, List<News> articles,
+                                           int pageCount, long now) {
+        //More new articles than a page holds are the whole first page on their own
+        if (pageCount <= 1) {
+            //The newest cached article comes back too, merge keeps the fetched copy of it
+            articles = MultiQueryFetcher.merge(Arrays.asList(articles, cached.getArticles()));
+            articles = articles.subList(0, Math.min(articles.size(), NewsQueries.PAGE_SIZE));
+        }
+        if (articles.equals(cached.getArticles())) {
+            return cached;
         }
+        return new NewsStore.CachedFeed(new ArrayList<>(articles), cached.getPageCount(), now,
+                null, null);
+    }
 
-        // Return the list of news articles
-        return articles;
+    //Get the process wide metrics of the load pipeline
+    public static Metrics getMetrics() {
+        return sMetrics;
     }
 
+    //Get the process wide pool of repeated article fields
+    public static StringPool getStringPool() {
+        return sStringPool;
+    }
+
+    //Get the process wide registry of fetches in flight, along with its hit and miss counters
+    public static RequestCoalescer<NewsStore.CachedFeed> getInFlightRequests() {
+        return sInFlightRequests;
+    }
 }
@@ -2,12 +2,16 @@ package com.example.android.newsapp;
 
 import android.content.SharedPreferences;
 import android.preference.ListPreference;
+import android.preference.MultiSelectListPreference;
 import android.preference.Preference;
 import android.preference.PreferenceManager;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
 import android.preference.PreferenceFragment;
 
+import java.util.Collections;
+import java.util.Set;
+
 public class SettingsActivity extends AppCompatActivity {
 
     @Override
@@ -29,10 +33,19 @@ public class SettingsActivity extends AppCompatActivity {
 
             Preference orderBy = findPreference(getString(R.string.settings_order_by_key));
             bindPrefrenceSummaryToValue(orderBy);
+
+            Preference sections = findPreference(getString(R.string.settings_sections_key));
+            sections.setOnPreferenceChangeListener(this);
+            onPreferenceChange(sections, PreferenceManager.getDefaultSharedPreferences(getActivity())
+                    .getStringSet(sections.getKey(), Collections.<String>emptySet()));
         }
 
         @Override
         public boolean onPreferenceChange(Preference preference, Object value) {
+            if (preference instanceof MultiSelectListPreference) {
+                preference.setSummary(getSelectedLabels((MultiSelectListPreference) preference, (Set<?>) value));
+                return true;
+            }
             String stringValue = value.toString();
             preference.setSummary(stringValue);
             if(preference instanceof ListPreference) {
@@ -48,6 +61,24 @@ public class SettingsActivity extends AppCompatActivity {
             return true;
         }
 
+        /**
+         * Returns the labels of the selected entries, in the order they are listed
+         */
+        private String getSelectedLabels(MultiSelectListPreference preference, Set<?> values) {
+            CharSequence[] labels = preference.getEntries();
+            CharSequence[] entryValues = preference.getEntryValues();
+            StringBuilder summary = new StringBuilder();
+            for (int i = 0; i < entryValues.length; i++) {
+                if (values.contains(entryValues[i].toString())) {
+                    if (summary.length() > 0) {
+                        summary.append(", ");
+                    }
+                    summary.append(labels[i]);
+                }
+            }
+            return summary.length() > 0 ? summary.toString() : getString(R.string.settings_sections_none);
+        }
+
         private void bindPrefrenceSummaryToValue(Preference preference) {
             preference.setOnPreferenceChangeListener(this);
             SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(preference.getContext());
@@ -0,0 +1,406 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.example.android.newsapp.core.Histogram;
+import com.example.android.newsapp.core.HttpTransport;
+import com.example.android.newsapp.core.PriorityExecutor;
+import com.example.android.newsapp.core.RequestCoalescer;
+import com.example.android.newsapp.core.UrlConnectionTransport;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Thumbnail images of the feed rows, keyed by image URL. Decoded bitmaps are kept in a size
+ * bounded LRU cache in memory and the downloaded files in a size bounded directory on disk, so
+ * an image is downloaded once and decoded again only after it was evicted from memory. Images
+ * are decoded downsampled to the size of the row's image view, on a small pool of background
+ * threads with a bounded queue; loads of recycled rows are cancelled.
+ */
+
+public final class Thumbnails {
+
+    private static final String LOG_TAG = Thumbnails.class.getSimpleName();
+
+    /** Directory below the cache directory the downloaded images are kept in */
+    private static final String DISK_CACHE_DIR = "thumbnails";
+
+    /** Size of the disk cache, the least recently used images are deleted first */
+    private static final long DISK_CACHE_BYTES = 20 * 1024 * 1024;
+
+    /** Share of the heap the memory cache may take */
+    private static final int MEMORY_CACHE_FRACTION = 8;
+
+    /** Number of images downloaded and decoded at the same time */
+    private static final int THREAD_COUNT = 2;
+
+    /**
+     * Number of loads waiting for a thread at most, more than the rows of a screen. Loads of
+     * recycled rows are taken out of the queue, so it only fills up if rows are bound faster
+     * than their loads are cancelled; further loads are then not started.
+     */
+    private static final int MAX_QUEUED_LOADS = 32;
+
+    /** Suffix of an image that is still being written */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static Thumbnails sInstance;
+
+    private static final Histogram sDecodeSpan = QueryUtils.getMetrics().span("thumb.decode");
+
+    /**
+     * Receives a loaded thumbnail on the main thread
+     */
+    public interface Callback {
+        void onThumbnailLoaded(String url, Bitmap bitmap);
+    }
+
+    private final LruCache<String, Bitmap> mMemoryCache;
+
+    private final File mDiskCacheDir;
+
+    /** Width and height in pixels images are decoded for, the size of the row's image view */
+    private final int mSize;
+
+    /**
+     * Images come from the Guardian's media servers, not the API, so they do not share the
+     * API client's retries and circuit breaker
+     */
+    private final HttpTransport mTransport = new UrlConnectionTransport(10000 /*milliseconds*/,
+            10000 /*milliseconds*/);
+
+    /** Rows asking for an image that is being downloaded wait for that download */
+    private final RequestCoalescer<File> mDownloads = new RequestCoalescer<>();
+
+    private final PriorityExecutor mExecutor;
+
+    /** True while a thread trims the disk cache, the others skip trimming meanwhile */
+    private final AtomicBoolean mTrimming = new AtomicBoolean();
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private Thumbnails(Context context) {
+        mSize = context.getResources().getDimensionPixelSize(R.dimen.thumbnail_size);
+        mDiskCacheDir = new File(context.getCacheDir(), DISK_CACHE_DIR);
+        int memoryCacheBytes = (int) Math.min(Integer.MAX_VALUE,
+                Runtime.getRuntime().maxMemory() / MEMORY_CACHE_FRACTION);
+        mMemoryCache = new LruCache<String, Bitmap>(memoryCacheBytes) {
+            @Override
+            protected int sizeOf(String url, Bitmap bitmap) {
+                return bitmap.getRowBytes() * bitmap.getHeight();
+            }
+        };
+        mExecutor = new PriorityExecutor(THREAD_COUNT, MAX_QUEUED_LOADS,
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        return new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                runnable.run();
+                            }
+                        }, "Thumbnails");
+                    }
+                });
+    }
+
+    /**
+     * Returns the process wide thumbnail cache
+     */
+    public static synchronized Thumbnails getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new Thumbnails(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the image if it is decoded in memory, without any I/O. Safe to call on the main
+     * thread.
+     */
+    public Bitmap getCached(String url) {
+        return mMemoryCache.get(url);
+    }
+
+    /**
+     * Load the image at the given URL from disk or the network on a background thread and hand
+     * it to the callback on the main thread. Nothing is delivered if the image can not be
+     * loaded. Pass the returned future to {@link #cancel} when the image is no longer needed,
+     * e.g. when its row is recycled. Returns null if too many loads are waiting already.
+     */
+    public Future<?> load(final String url, final Callback callback) {
+        try {
+            return mExecutor.submit(newLoad(url, callback));
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stop a load started with {@link #load}. A load that has not started yet is taken out of
+     * the queue; a running one is interrupted, which stops its download, and delivers nothing.
+     */
+    public void cancel(Future<?> load) {
+        load.cancel(true);
+        mExecutor.remove((Runnable) load);
+    }
+
+    private Runnable newLoad(final String url, final Callback callback) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap bitmap = loadBitmap(url);
+                if (bitmap == null || Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onThumbnailLoaded(url, bitmap);
+                    }
+                });
+            }
+        };
+    }
+
+    private Bitmap loadBitmap(String url) {
+        Bitmap bitmap = mMemoryCache.get(url);
+        if (bitmap != null) {
+            return bitmap;
+        }
+        File file = getFile(url);
+        if (file == null) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        bitmap = decode(file, mSize, mSize);
+        sDecodeSpan.recordSince(start);
+        if (bitmap == null) {
+            //Not an image or cut off, download it again next time
+            file.delete();
+            return null;
+        }
+        mMemoryCache.put(url, bitmap);
+        return bitmap;
+    }
+
+    /**
+     * Returns the downloaded image file, downloading it first if it is not on disk. Returns
+     * null if the download failed.
+     */
+    private File getFile(final String url) {
+        final File file = new File(mDiskCacheDir, hash(url));
+        if (file.exists()) {
+            //Mark the file as recently used for trimming
+            file.setLastModified(System.currentTimeMillis());
+            return file;
+        }
+        try {
+            return mDownloads.execute(url, new Callable<File>() {
+                @Override
+                public File call() throws IOException {
+                    //Another row may have downloaded it while this one waited for a thread
+                    if (file.exists() || download(url, file)) {
+                        return file;
+                    }
+                    return null;
+                }
+            });
+        } catch (ExecutionException e) {
+            Log.e(LOG_TAG, "Problem downloading the thumbnail " + url, e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Download the image into the given file of the disk cache. It is written next to the file
+     * first and then renamed, so a half written image is never decoded. The partly written
+     * file is deleted if the download fails or is interrupted.
+     */
+    private boolean download(String url, File file) throws IOException {
+        HttpTransport.Response response = mTransport.get(url,
+                Collections.<String, String>emptyMap());
+        try {
+            if (response.getCode() != 200) {
+                Log.e(LOG_TAG, "Error response code " + response.getCode() + " for " + url);
+                return false;
+            }
+            if (!mDiskCacheDir.isDirectory() && !mDiskCacheDir.mkdirs()) {
+                throw new IOException("Can not create " + mDiskCacheDir);
+            }
+            File temp = new File(file.getPath() + TEMP_SUFFIX);
+            boolean written = false;
+            try {
+                InputStream in = response.getBody();
+                OutputStream out = new FileOutputStream(temp);
+                try {
+                    byte[] buffer = new byte[8192];
+                    int count;
+                    while ((count = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, count);
+                    }
+                } finally {
+                    out.close();
+                }
+                if (!temp.renameTo(file)) {
+                    throw new IOException("Can not rename " + temp);
+                }
+                written = true;
+            } finally {
+                if (!written) {
+                    temp.delete();
+                }
+            }
+        } finally {
+            response.close();
+        }
+        QueryUtils.getMetrics().count("thumb.download", 1);
+        trimDiskCache();
+        return true;
+    }
+
+    /**
+     * Delete the least recently used images until the disk cache fits its size. Only one thread
+     * trims at a time, a download finishing meanwhile leaves it to that one or the next.
+     * Images still being written are neither counted nor deleted.
+     */
+    private void trimDiskCache() {
+        if (!mTrimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            deleteLeastRecentlyUsed();
+        } finally {
+            mTrimming.set(false);
+        }
+    }
+
+    private void deleteLeastRecentlyUsed() {
+        File[] files = mDiskCacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        //Other threads touch and add files while this runs, so sort on values read once
+        List<CachedImage> images = new ArrayList<>(files.length);
+        long total = 0;
+        for (File file : files) {
+            if (!file.getName().endsWith(TEMP_SUFFIX)) {
+                CachedImage image = new CachedImage(file);
+                images.add(image);
+                total += image.mLength;
+            }
+        }
+        if (total <= DISK_CACHE_BYTES) {
+            return;
+        }
+        Collections.sort(images, CachedImage.LEAST_RECENTLY_USED_FIRST);
+        for (int i = 0; i < images.size() && total > DISK_CACHE_BYTES; i++) {
+            if (images.get(i).mFile.delete()) {
+                total -= images.get(i).mLength;
+            }
+        }
+    }
+
+    /**
+     * A file of the disk cache with its size and last use as they were when it was listed
+     */
+    private static final class CachedImage {
+
+        static final Comparator<CachedImage> LEAST_RECENTLY_USED_FIRST =
+                new Comparator<CachedImage>() {
+                    @Override
+                    public int compare(CachedImage a, CachedImage b) {
+                        long aModified = a.mLastModified;
+                        long bModified = b.mLastModified;
+                        return aModified < bModified ? -1 : (aModified == bModified ? 0 : 1);
+                    }
+                };
+
+        final File mFile;
+        final long mLength;
+        final long mLastModified;
+
+        CachedImage(File file) {
+            mFile = file;
+            mLength = file.length();
+            mLastModified = file.lastModified();
+        }
+    }
+
+    /**
+     * Decode the image in the given file at the smallest power of two fraction of its size
+     * that still covers the given width and height. Thumbnails are opaque, so they are decoded
+     * at two bytes per pixel. Returns null if the file is not an image.
+     */
+    static Bitmap decode(File file, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, width, height);
+        options.inJustDecodeBounds = false;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        return BitmapFactory.decodeFile(file.getPath(), options);
+    }
+
+    /**
+     * Returns the largest power of two the image can be divided by while both of its sides
+     * stay at least as big as the requested ones
+     */
+    static int calculateInSampleSize(int imageWidth, int imageHeight, int width, int height) {
+        int inSampleSize = 1;
+        while (imageWidth / (inSampleSize * 2) >= width && imageHeight / (inSampleSize * 2) >= height) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * Returns a file name for the given URL
+     */
+    private static String hash(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes("UTF-8"));
+            StringBuilder name = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16))
+                        .append(Character.forDigit(b & 0xf, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            //Every runtime has SHA-1 and UTF-8
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.android.newsapp.data;
+
+import android.provider.BaseColumns;
+
+/**
+ * Schema of the local article store. Articles are cached per request URL so a loader can show
+ * the last result for its query before the network round trip finishes. A full text index over
+ * the cached articles answers new searches before they reach the network.
+ */
+
+public final class NewsContract {
+
+    private NewsContract() {
+    }
+
+    /**
+     * One row for every request URL that has been fetched
+     */
+    public static final class QueryEntry implements BaseColumns {
+
+        public static final String TABLE_NAME = "queries";
+
+        //Request URL the cached articles were fetched from
+        public static final String COLUMN_URL = "url";
+
+        //Time the response was last confirmed by the server, in epoch millis
+        public static final String COLUMN_FETCHED_AT = "fetched_at";
+
+        //ETag header of the last response, sent back as If-None-Match
+        public static final String COLUMN_ETAG = "etag";
+
+        //Last-Modified header of the last response, sent back as If-Modified-Since
+        public static final String COLUMN_LAST_MODIFIED = "last_modified";
+
+        //Total number of result pages the API reported for the query
+        public static final String COLUMN_PAGE_COUNT = "page_count";
+    }
+
+    /**
+     * One row for every article of a cached query, in the order the API returned them
+     */
+    public static final class ArticleEntry implements BaseColumns {
+
+        public static final String TABLE_NAME = "articles";
+
+        //Request URL of the query this article belongs to
+        public static final String COLUMN_QUERY_URL = "query_url";
+
+        //Position of the article within the response
+        public static final String COLUMN_POSITION = "position";
+
+        public static final String COLUMN_TITLE = "title";
+        public static final String COLUMN_SECTION = "section";
+        //Publication time in epoch millis
+        public static final String COLUMN_PUBLISHED_AT = "published_at";
+        public static final String COLUMN_AUTHOR = "author";
+        public static final String COLUMN_URL = "url";
+        //URL of the thumbnail image, null if the article has none
+        public static final String COLUMN_THUMBNAIL_URL = "thumbnail_url";
+    }
+
+    /**
+     * Full text index over the title, section and author of every cached article. The docid of
+     * a row is the _ID of the article it indexes; triggers keep both tables in step.
+     */
+    public static final class ArticleSearchEntry {
+
+        public static final String TABLE_NAME = "articles_fts";
+
+        public static final String COLUMN_TITLE = ArticleEntry.COLUMN_TITLE;
+        public static final String COLUMN_SECTION = ArticleEntry.COLUMN_SECTION;
+        public static final String COLUMN_AUTHOR = ArticleEntry.COLUMN_AUTHOR;
+
+        private ArticleSearchEntry() {
+        }
+    }
+
+    /**
+     * Plain text body of an article opened or prefetched for the in-app reader, keyed by the
+     * article's web URL
+     */
+    public static final class BodyEntry implements BaseColumns {
+
+        public static final String TABLE_NAME = "bodies";
+
+        //Web URL of the article
+        public static final String COLUMN_URL = "url";
+
+        public static final String COLUMN_BODY = "body";
+
+        //Time the body was fetched, in epoch millis; the oldest bodies are dropped first
+        public static final String COLUMN_FETCHED_AT = "fetched_at";
+    }
+}
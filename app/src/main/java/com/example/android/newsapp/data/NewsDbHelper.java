@@ -0,0 +1,84 @@
+package com.example.android.newsapp.data;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import com.example.android.newsapp.data.NewsContract.ArticleEntry;
+import com.example.android.newsapp.data.NewsContract.ArticleSearchEntry;
+import com.example.android.newsapp.data.NewsContract.BodyEntry;
+import com.example.android.newsapp.data.NewsContract.QueryEntry;
+
+/**
+ * Database helper for the local article store. Manages database creation and version management.
+ */
+
+public class NewsDbHelper extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "news.db";
+
+    private static final int DATABASE_VERSION = 7;
+
+    public NewsDbHelper(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + QueryEntry.TABLE_NAME + " ("
+                + QueryEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + QueryEntry.COLUMN_URL + " TEXT NOT NULL UNIQUE, "
+                + QueryEntry.COLUMN_FETCHED_AT + " INTEGER NOT NULL, "
+                + QueryEntry.COLUMN_ETAG + " TEXT, "
+                + QueryEntry.COLUMN_LAST_MODIFIED + " TEXT, "
+                + QueryEntry.COLUMN_PAGE_COUNT + " INTEGER NOT NULL DEFAULT 0);");
+
+        db.execSQL("CREATE TABLE " + ArticleEntry.TABLE_NAME + " ("
+                + ArticleEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + ArticleEntry.COLUMN_QUERY_URL + " TEXT NOT NULL, "
+                + ArticleEntry.COLUMN_POSITION + " INTEGER NOT NULL, "
+                + ArticleEntry.COLUMN_TITLE + " TEXT, "
+                + ArticleEntry.COLUMN_SECTION + " TEXT, "
+                + ArticleEntry.COLUMN_PUBLISHED_AT + " INTEGER NOT NULL, "
+                + ArticleEntry.COLUMN_AUTHOR + " TEXT, "
+                + ArticleEntry.COLUMN_URL + " TEXT, "
+                + ArticleEntry.COLUMN_THUMBNAIL_URL + " TEXT);");
+
+        db.execSQL("CREATE INDEX articles_by_query ON " + ArticleEntry.TABLE_NAME + " ("
+                + ArticleEntry.COLUMN_QUERY_URL + ", " + ArticleEntry.COLUMN_POSITION + ");");
+
+        //The index holds its own copy of the text, external content tables need a newer
+        //SQLite than the oldest supported release ships with
+        db.execSQL("CREATE VIRTUAL TABLE " + ArticleSearchEntry.TABLE_NAME + " USING fts4("
+                + ArticleSearchEntry.COLUMN_TITLE + ", "
+                + ArticleSearchEntry.COLUMN_SECTION + ", "
+                + ArticleSearchEntry.COLUMN_AUTHOR + ");");
+
+        //Every article written or replaced updates only its own index row
+        db.execSQL("CREATE TRIGGER articles_ai AFTER INSERT ON " + ArticleEntry.TABLE_NAME + " BEGIN "
+                + "INSERT INTO " + ArticleSearchEntry.TABLE_NAME + " (docid, "
+                + ArticleSearchEntry.COLUMN_TITLE + ", " + ArticleSearchEntry.COLUMN_SECTION + ", "
+                + ArticleSearchEntry.COLUMN_AUTHOR + ") VALUES (new." + ArticleEntry._ID + ", new."
+                + ArticleEntry.COLUMN_TITLE + ", new." + ArticleEntry.COLUMN_SECTION + ", new."
+                + ArticleEntry.COLUMN_AUTHOR + "); END;");
+        db.execSQL("CREATE TRIGGER articles_ad AFTER DELETE ON " + ArticleEntry.TABLE_NAME + " BEGIN "
+                + "DELETE FROM " + ArticleSearchEntry.TABLE_NAME + " WHERE docid = old."
+                + ArticleEntry._ID + "; END;");
+
+        db.execSQL("CREATE TABLE " + BodyEntry.TABLE_NAME + " ("
+                + BodyEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + BodyEntry.COLUMN_URL + " TEXT NOT NULL UNIQUE, "
+                + BodyEntry.COLUMN_BODY + " TEXT NOT NULL, "
+                + BodyEntry.COLUMN_FETCHED_AT + " INTEGER NOT NULL);");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        //The store only holds cached copies of API responses, so it is simply rebuilt
+        db.execSQL("DROP TABLE IF EXISTS " + BodyEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + ArticleSearchEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + ArticleEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + QueryEntry.TABLE_NAME);
+        onCreate(db);
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.android.newsapp.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.android.newsapp.QueryUtils;
+import com.example.android.newsapp.core.News;
+import com.example.android.newsapp.core.PublicationDate;
+import com.example.android.newsapp.core.StringPool;
+import com.example.android.newsapp.data.NewsContract.ArticleEntry;
+import com.example.android.newsapp.data.NewsContract.ArticleSearchEntry;
+import com.example.android.newsapp.data.NewsContract.BodyEntry;
+import com.example.android.newsapp.data.NewsContract.QueryEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes cached articles, keyed by the request URL they were fetched from.
+ * All methods do disk I/O and must be called off the main thread.
+ */
+
+public final class NewsStore {
+
+    private static NewsStore sInstance;
+
+    private final NewsDbHelper mDbHelper;
+
+    /** Shared with the parser, so cached and fetched articles hold the same strings */
+    private final StringPool mStringPool = QueryUtils.getStringPool();
+
+    /**
+     * Articles of one cached query together with the time they were fetched
+     */
+    public static final class CachedFeed {
+
+        private final List<News> mArticles;
+        private final long mFetchedAt;
+        private final String mETag;
+        private final String mLastModified;
+        private final int mPageCount;
+
+        public CachedFeed(List<News> articles, int pageCount, long fetchedAt, String eTag, String lastModified) {
+            mArticles = articles;
+            mPageCount = pageCount;
+            mFetchedAt = fetchedAt;
+            mETag = eTag;
+            mLastModified = lastModified;
+        }
+
+        public List<News> getArticles() {return mArticles;}
+
+        //Total number of result pages the API reported for the query, 0 if unknown
+        public int getPageCount() {return mPageCount;}
+
+        public long getFetchedAt() {return mFetchedAt;}
+
+        //Get the publication time of the newest article, PublicationDate.UNKNOWN if none has one
+        public long getNewestPublishedMillis() {
+            long newest = PublicationDate.UNKNOWN;
+            for (News article : mArticles) {
+                newest = Math.max(newest, article.getPublishedMillis());
+            }
+            return newest;
+        }
+
+        //Validators of the response the articles came from, null if the server sent none
+        public String getETag() {return mETag;}
+
+        public String getLastModified() {return mLastModified;}
+
+        //Returns true if the feed was fetched longer than the given time ago
+        public boolean isOlderThan(long maxAgeMillis) {
+            return System.currentTimeMillis() - mFetchedAt > maxAgeMillis;
+        }
+    }
+
+    private NewsStore(Context context) {
+        mDbHelper = new NewsDbHelper(context.getApplicationContext());
+    }
+
+    /**
+     * Returns the process wide store, so every loader shares one database connection
+     */
+    public static synchronized NewsStore getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new NewsStore(context);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Open the database, creating or upgrading it if needed, so the first read does not wait
+     * for it
+     */
+    public void warmUp() {
+        mDbHelper.getReadableDatabase();
+    }
+
+    /**
+     * Returns the cached articles for the given request URL, or null if it was never fetched
+     */
+    public CachedFeed read(String queryUrl) {
+        SQLiteDatabase db = mDbHelper.getReadableDatabase();
+
+        long fetchedAt;
+        String eTag;
+        String lastModified;
+        int pageCount;
+        Cursor queryCursor = db.query(QueryEntry.TABLE_NAME,
+                new String[]{QueryEntry.COLUMN_FETCHED_AT, QueryEntry.COLUMN_ETAG,
+                        QueryEntry.COLUMN_LAST_MODIFIED, QueryEntry.COLUMN_PAGE_COUNT},
+                QueryEntry.COLUMN_URL + "=?", new String[]{queryUrl},
+                null, null, null);
+        try {
+            if (!queryCursor.moveToFirst()) {
+                return null;
+            }
+            fetchedAt = queryCursor.getLong(0);
+            eTag = queryCursor.getString(1);
+            lastModified = queryCursor.getString(2);
+            pageCount = queryCursor.getInt(3);
+        } finally {
+            queryCursor.close();
+        }
+
+        List<News> articles = new ArrayList<>();
+        Cursor cursor = db.query(ArticleEntry.TABLE_NAME,
+                new String[]{ArticleEntry.COLUMN_TITLE, ArticleEntry.COLUMN_SECTION,
+                        ArticleEntry.COLUMN_PUBLISHED_AT, ArticleEntry.COLUMN_AUTHOR, ArticleEntry.COLUMN_URL,
+                        ArticleEntry.COLUMN_THUMBNAIL_URL},
+                ArticleEntry.COLUMN_QUERY_URL + "=?", new String[]{queryUrl},
+                null, null, ArticleEntry.COLUMN_POSITION);
+        try {
+            while (cursor.moveToNext()) {
+                articles.add(readArticle(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return new CachedFeed(articles, pageCount, fetchedAt, eTag, lastModified);
+    }
+
+    /**
+     * Read the article at the cursor's position, its columns being title, section, publication
+     * time, author, url and thumbnail url
+     */
+    private News readArticle(Cursor cursor) {
+        return new News(cursor.getString(0), mStringPool.intern(cursor.getString(1)),
+                cursor.getLong(2), mStringPool.intern(cursor.getString(3)), cursor.getString(4),
+                cursor.getString(5));
+    }
+
+    /**
+     * Returns up to limit cached articles whose title, section or author contain every word
+     * of the given search terms, newest first and without duplicates. Articles cached for
+     * several queries are returned once.
+     */
+    public List<News> search(String terms, int limit) {
+        List<News> articles = new ArrayList<>();
+        String match = toMatchQuery(terms);
+        if (match.isEmpty()) {
+            return articles;
+        }
+
+        Cursor cursor = mDbHelper.getReadableDatabase().rawQuery("SELECT a."
+                + ArticleEntry.COLUMN_TITLE + ", a." + ArticleEntry.COLUMN_SECTION
+                + ", MAX(a." + ArticleEntry.COLUMN_PUBLISHED_AT + "), a." + ArticleEntry.COLUMN_AUTHOR
+                + ", a." + ArticleEntry.COLUMN_URL + ", a." + ArticleEntry.COLUMN_THUMBNAIL_URL
+                + " FROM " + ArticleEntry.TABLE_NAME + " a JOIN " + ArticleSearchEntry.TABLE_NAME
+                + " ON a." + ArticleEntry._ID + " = " + ArticleSearchEntry.TABLE_NAME + ".docid"
+                + " WHERE " + ArticleSearchEntry.TABLE_NAME + " MATCH ?"
+                + " GROUP BY a." + ArticleEntry.COLUMN_URL
+                + " ORDER BY MAX(a." + ArticleEntry.COLUMN_PUBLISHED_AT + ") DESC LIMIT ?",
+                new String[]{match, String.valueOf(limit)});
+        try {
+            while (cursor.moveToNext()) {
+                articles.add(readArticle(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return articles;
+    }
+
+    /**
+     * Turn user typed search terms into an FTS query that matches all of their words. Each
+     * word is quoted, so characters with a meaning in the FTS syntax are searched for literally.
+     */
+    private static String toMatchQuery(String terms) {
+        StringBuilder match = new StringBuilder();
+        for (String word : terms.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append('"').append(word).append('"');
+            }
+        }
+        return match.toString();
+    }
+
+    /**
+     * Replaces the cached articles for the given request URL, along with the validators of the
+     * response they were parsed from
+     */
+    public void write(String queryUrl, List<News> articles, int pageCount, long fetchedAt,
+                      String eTag, String lastModified) {
+        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(ArticleEntry.TABLE_NAME, ArticleEntry.COLUMN_QUERY_URL + "=?",
+                    new String[]{queryUrl});
+
+            ContentValues values = new ContentValues();
+            for (int i = 0; i < articles.size(); i++) {
+                News article = articles.get(i);
+                values.clear();
+                values.put(ArticleEntry.COLUMN_QUERY_URL, queryUrl);
+                values.put(ArticleEntry.COLUMN_POSITION, i);
+                values.put(ArticleEntry.COLUMN_TITLE, article.getTitle());
+                values.put(ArticleEntry.COLUMN_SECTION, article.getSection());
+                values.put(ArticleEntry.COLUMN_PUBLISHED_AT, article.getPublishedMillis());
+                values.put(ArticleEntry.COLUMN_AUTHOR, article.getAuthor());
+                values.put(ArticleEntry.COLUMN_URL, article.getUrl());
+                values.put(ArticleEntry.COLUMN_THUMBNAIL_URL, article.getThumbnailUrl());
+                db.insert(ArticleEntry.TABLE_NAME, null, values);
+            }
+
+            ContentValues queryValues = new ContentValues();
+            queryValues.put(QueryEntry.COLUMN_URL, queryUrl);
+            queryValues.put(QueryEntry.COLUMN_FETCHED_AT, fetchedAt);
+            queryValues.put(QueryEntry.COLUMN_ETAG, eTag);
+            queryValues.put(QueryEntry.COLUMN_LAST_MODIFIED, lastModified);
+            queryValues.put(QueryEntry.COLUMN_PAGE_COUNT, pageCount);
+            db.insertWithOnConflict(QueryEntry.TABLE_NAME, null, queryValues,
+                    SQLiteDatabase.CONFLICT_REPLACE);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Marks the cached articles for the given request URL as confirmed at the given time,
+     * keeping their validators
+     */
+    public void touch(String queryUrl, long fetchedAt) {
+        ContentValues values = new ContentValues();
+        values.put(QueryEntry.COLUMN_FETCHED_AT, fetchedAt);
+        mDbHelper.getWritableDatabase().update(QueryEntry.TABLE_NAME, values,
+                QueryEntry.COLUMN_URL + "=?", new String[]{queryUrl});
+    }
+
+    /**
+     * Returns the stored body of the article at the given web URL, or null if there is none
+     */
+    public String readBody(String articleUrl) {
+        Cursor cursor = mDbHelper.getReadableDatabase().query(BodyEntry.TABLE_NAME,
+                new String[]{BodyEntry.COLUMN_BODY},
+                BodyEntry.COLUMN_URL + "=?", new String[]{articleUrl},
+                null, null, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Stores the body of the article at the given web URL, then drops the oldest bodies so at
+     * most maxBodies are kept
+     */
+    public void writeBody(String articleUrl, String body, long fetchedAt, int maxBodies) {
+        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            values.put(BodyEntry.COLUMN_URL, articleUrl);
+            values.put(BodyEntry.COLUMN_BODY, body);
+            values.put(BodyEntry.COLUMN_FETCHED_AT, fetchedAt);
+            db.insertWithOnConflict(BodyEntry.TABLE_NAME, null, values,
+                    SQLiteDatabase.CONFLICT_REPLACE);
+            db.execSQL("DELETE FROM " + BodyEntry.TABLE_NAME + " WHERE " + BodyEntry._ID
+                    + " NOT IN (SELECT " + BodyEntry._ID + " FROM " + BodyEntry.TABLE_NAME
+                    + " ORDER BY " + BodyEntry.COLUMN_FETCHED_AT + " DESC LIMIT " + maxBodies + ")");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
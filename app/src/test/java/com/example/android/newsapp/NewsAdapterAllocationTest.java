@@ -0,0 +1,94 @@
+package com.example.android.newsapp;
+
+import com.example.android.newsapp.core.News;
+import com.example.android.newsapp.core.PublicationDate;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that binding the text of an article row allocates nothing, by counting the bytes the
+ * test thread allocates while binding the same articles over and over. Only
+ * NewsAdapter.bindArticle is measured; the thumbnail half of onBindViewHolder needs views and
+ * is not covered.
+ */
+public class NewsAdapterAllocationTest {
+
+    private static final int BINDS = 100000;
+
+    /**
+     * Row that only keeps references to what it is given, like a TextView keeps its text
+     */
+    private static class RecordingRow implements NewsAdapter.ArticleRow {
+        CharSequence title;
+        CharSequence section;
+        CharSequence date;
+        CharSequence author;
+
+        @Override
+        public void setTitle(CharSequence title) {
+            this.title = title;
+        }
+
+        @Override
+        public void setSection(CharSequence section) {
+            this.section = section;
+        }
+
+        @Override
+        public void setDate(CharSequence date) {
+            this.date = date;
+        }
+
+        @Override
+        public void setAuthor(CharSequence author) {
+            this.author = author;
+        }
+    }
+
+    @Test
+    public void bindArticle_allocatesNothing() throws Exception {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+        News[] articles = {
+                new News("Title", "World news", PublicationDate.parse("2018-09-05T21:08:41Z"),
+                        "Jane Doe", "https://www.theguardian.com/a"),
+                new News("No author", null, PublicationDate.UNKNOWN, null,
+                        "https://www.theguardian.com/b")
+        };
+        RecordingRow row = new RecordingRow();
+        long threadId = Thread.currentThread().getId();
+
+        //Warm up so the loop below runs compiled code
+        bindAll(articles, row);
+
+        //Reading the counter can allocate by itself, so measure that first
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        long overhead = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        before = allocationBean.getThreadAllocatedBytes(threadId);
+        bindAll(articles, row);
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before - overhead;
+
+        //A few bytes may come from the runtime switching to compiled code, anything that
+        //scales with the number of binds shows up as at least one byte per bind
+        assertEquals("bytes allocated per bind", 0, allocated / BINDS);
+        assertEquals("2018-09-05", articles[0].getDisplayDate());
+        assertEquals("", row.author);
+    }
+
+    private static void bindAll(News[] articles, RecordingRow row) {
+        for (int i = 0; i < BINDS; i++) {
+            NewsAdapter.bindArticle(articles[i % articles.length], row);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the page bookkeeping of NewsPager when pages lose articles to their neighbours
+ */
+public class NewsPagerTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Test
+    public void pagesAreCountedByTheRowsAdded() {
+        NewsPager pager = new NewsPager(PAGE_SIZE, 2, 5);
+        pager.reset(PAGE_SIZE, 0);
+
+        assertEquals(2, pager.nextPageToLoad(30, 35, 40));
+        //Three articles of page 2 were on page 1 already
+        assertEquals(0, pager.onPageAppended(PAGE_SIZE - 3, PAGE_SIZE, 0));
+        assertEquals(3, pager.nextPageToLoad(30, 36, 37));
+        //Page 1 is dropped, by its rows
+        assertEquals(PAGE_SIZE, pager.onPageAppended(PAGE_SIZE, PAGE_SIZE, 0));
+    }
+
+    @Test
+    public void pageWithDuplicatesStillCountsAsFull() {
+        NewsPager pager = new NewsPager(PAGE_SIZE, 5, 5);
+        pager.reset(PAGE_SIZE, 0);
+        pager.nextPageToLoad(30, 35, 40);
+        pager.onPageAppended(2, PAGE_SIZE, 0);
+
+        //The page count is unknown, a full page means there is a next one
+        assertEquals(3, pager.nextPageToLoad(18, 21, 22));
+    }
+
+    @Test
+    public void shortPageEndsTheList() {
+        NewsPager pager = new NewsPager(PAGE_SIZE, 5, 5);
+        pager.reset(PAGE_SIZE, 0);
+        pager.nextPageToLoad(15, 19, 20);
+        pager.onPageAppended(7, 7, 0);
+
+        assertEquals(0, pager.nextPageToLoad(20, 26, 27));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.android.newsapp;
+
+import com.example.android.newsapp.core.News;
+import com.example.android.newsapp.data.NewsStore;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks how the articles of a delta request are merged into the cached page
+ */
+public class QueryUtilsTest {
+
+    private static final long NOW = 1511172000000L;
+
+    @Test
+    public void newArticlesGoInFrontOfTheCachedPage() {
+        List<News> cachedArticles = articles(10, 1000);
+        NewsStore.CachedFeed cached = new NewsStore.CachedFeed(cachedArticles, 4, 1, "\"etag\"",
+                "Mon, 20 Nov 2017 10:00:00 GMT");
+        //The delta repeats the newest cached article
+        List<News> delta = Arrays.asList(article(3000), article(2000), cachedArticles.get(0));
+
+        NewsStore.CachedFeed merged = QueryUtils.mergeDelta(cached, delta, 1, NOW);
+
+        List<News> expected = new ArrayList<>();
+        expected.add(article(3000));
+        expected.add(article(2000));
+        expected.addAll(cachedArticles);
+        assertEquals(expected, merged.getArticles());
+        assertEquals(4, merged.getPageCount());
+        assertEquals(NOW, merged.getFetchedAt());
+        //The cached validators were for the full page, the merged list has none
+        assertNull(merged.getETag());
+        assertNull(merged.getLastModified());
+    }
+
+    @Test
+    public void mergedPageKeepsItsSize() {
+        List<News> cachedArticles = articles(NewsQueries.PAGE_SIZE, 1000);
+        NewsStore.CachedFeed cached = new NewsStore.CachedFeed(cachedArticles, 2, 1, null, null);
+
+        NewsStore.CachedFeed merged = QueryUtils.mergeDelta(cached,
+                Arrays.asList(article(5000), cachedArticles.get(0)), 1, NOW);
+
+        assertEquals(NewsQueries.PAGE_SIZE, merged.getArticles().size());
+        assertEquals(article(5000), merged.getArticles().get(0));
+        assertEquals(cachedArticles.get(NewsQueries.PAGE_SIZE - 2),
+                merged.getArticles().get(NewsQueries.PAGE_SIZE - 1));
+    }
+
+    @Test
+    public void fullPageOfNewArticlesReplacesTheCachedOne() {
+        NewsStore.CachedFeed cached = new NewsStore.CachedFeed(articles(5, 1000), 3, 1, "\"etag\"", null);
+        List<News> delta = articles(NewsQueries.PAGE_SIZE, 100000);
+
+        NewsStore.CachedFeed merged = QueryUtils.mergeDelta(cached, delta, 2, NOW);
+
+        assertEquals(delta, merged.getArticles());
+        assertEquals(3, merged.getPageCount());
+        assertNull(merged.getETag());
+    }
+
+    @Test
+    public void deltaWithoutNewArticlesKeepsTheCachedFeed() {
+        List<News> cachedArticles = articles(10, 1000);
+        NewsStore.CachedFeed cached = new NewsStore.CachedFeed(cachedArticles, 4, 1, "\"etag\"", null);
+
+        assertSame(cached, QueryUtils.mergeDelta(cached,
+                Collections.singletonList(cachedArticles.get(0)), 1, NOW));
+    }
+
+    /**
+     * Returns articles published one second apart, the newest first at the given time
+     */
+    private static List<News> articles(int count, long newestSeconds) {
+        List<News> articles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            articles.add(article(newestSeconds - i));
+        }
+        return articles;
+    }
+
+    private static News article(long publishedSeconds) {
+        return new News("Title " + publishedSeconds, "News", publishedSeconds * 1000, null,
+                "https://a/" + publishedSeconds);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.android.newsapp.benchmark;
+
+import com.example.android.newsapp.core.PublicationDate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the per-article date handling. One operation is one article's timestamp.
+ * splitOnBind is the contains/split the adapter used to do for every bound row, kept as the
+ * baseline the precomputed path is compared against.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DateBenchmark {
+
+    private static final String TIME_SEPERATOR = "T";
+
+    private String mTimestamp = "2018-09-05T21:08:41Z";
+
+    private long mMillis = PublicationDate.parse(mTimestamp);
+
+    @Benchmark
+    public long parse() {
+        return PublicationDate.parse(mTimestamp);
+    }
+
+    @Benchmark
+    public String format() {
+        return PublicationDate.formatDate(mMillis);
+    }
+
+    @Benchmark
+    public String splitOnBind() {
+        String date = mTimestamp;
+        if (date.contains(TIME_SEPERATOR)) {
+            return date.split(TIME_SEPERATOR)[0];
+        }
+        return date;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.android.newsapp.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Guardian search responses used by the benchmarks. The results of the recorded
+ * guardian-search-10.json response are repeated, with unique ids and URLs, to build responses
+ * of any size that have the same field mix as the real API.
+ */
+final class Fixtures {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String RECORDED_RESPONSE = "/guardian-search-10.json";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Returns the UTF-8 body of a search response with the given number of results
+     */
+    static byte[] searchResponse(int results) throws IOException {
+        JsonObject recorded = readRecorded();
+        JsonObject response = recorded.getAsJsonObject("response");
+        JsonArray recordedResults = response.getAsJsonArray("results");
+
+        JsonArray expanded = new JsonArray();
+        for (int i = 0; i < results; i++) {
+            JsonObject article = recordedResults.get(i % recordedResults.size()).getAsJsonObject().deepCopy();
+            if (i >= recordedResults.size()) {
+                String suffix = "-" + i;
+                article.addProperty("id", article.get("id").getAsString() + suffix);
+                article.addProperty("webUrl", article.get("webUrl").getAsString() + suffix);
+                article.addProperty("apiUrl", article.get("apiUrl").getAsString() + suffix);
+            }
+            expanded.add(article);
+        }
+        response.addProperty("pageSize", results);
+        response.add("results", expanded);
+        return recorded.toString().getBytes(UTF_8);
+    }
+
+    private static JsonObject readRecorded() throws IOException {
+        InputStream in = Fixtures.class.getResourceAsStream(RECORDED_RESPONSE);
+        if (in == null) {
+            throw new IOException("Missing fixture " + RECORDED_RESPONSE);
+        }
+        try {
+            JsonElement element = new JsonParser().parse(new InputStreamReader(in, UTF_8));
+            return element.getAsJsonObject();
+        } finally {
+            in.close();
+        }
+    }
+}
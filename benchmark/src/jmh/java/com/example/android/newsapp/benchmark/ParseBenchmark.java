@@ -0,0 +1,97 @@
+package com.example.android.newsapp.benchmark;
+
+import com.example.android.newsapp.core.Metrics;
+import com.example.android.newsapp.core.News;
+import com.example.android.newsapp.core.NewsStreamParser;
+import com.example.android.newsapp.core.StringPool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a Guardian search response body into News objects: UTF-8 decoding, streaming
+ * JSON parsing, date parsing and building the display fields. Every benchmark counts one
+ * operation per article, so the reported throughput is articles per second and the gc
+ * profiler's alloc.rate.norm is bytes allocated per article.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    private byte[] mResponse10;
+    private byte[] mResponse50;
+    private byte[] mResponse200;
+    private byte[] mResponse1000;
+
+    /** Warmed up by the first invocation, like the app's pool after the first page */
+    private final StringPool mStringPool = new StringPool(2048, new Metrics());
+
+    @Setup
+    public void loadFixtures() throws IOException {
+        mResponse10 = Fixtures.searchResponse(10);
+        mResponse50 = Fixtures.searchResponse(50);
+        mResponse200 = Fixtures.searchResponse(200);
+        mResponse1000 = Fixtures.searchResponse(1000);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public int parse10(Blackhole blackhole) throws IOException {
+        return parse(mResponse10, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(50)
+    public int parse50(Blackhole blackhole) throws IOException {
+        return parse(mResponse50, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(200)
+    public int parse200(Blackhole blackhole) throws IOException {
+        return parse(mResponse200, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public int parse1000(Blackhole blackhole) throws IOException {
+        return parse(mResponse1000, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public int parse1000Pooled(Blackhole blackhole) throws IOException {
+        return parse(mResponse1000, mStringPool, blackhole);
+    }
+
+    private static int parse(byte[] body, Blackhole blackhole) throws IOException {
+        return parse(body, null, blackhole);
+    }
+
+    private static int parse(byte[] body, StringPool pool, final Blackhole blackhole) throws IOException {
+        return NewsStreamParser.parse(new ByteArrayInputStream(body), pool, new NewsStreamParser.ArticleListener() {
+            @Override
+            public void onArticle(News article) {
+                blackhole.consume(article);
+            }
+        }, null);
+    }
+}
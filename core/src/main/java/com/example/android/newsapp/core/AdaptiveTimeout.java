@@ -0,0 +1,66 @@
+package com.example.android.newsapp.core;
+
+/**
+ * Timeout that follows the latency actually observed, the way TCP derives its retransmission
+ * timeout: a smoothed mean plus four times the smoothed deviation, kept between a floor and a
+ * ceiling. A fast connection then gives up on a stalled request in a few seconds instead of
+ * waiting out a fixed worst case, while a slow one gets the time it needs. Thread safe.
+ */
+
+public final class AdaptiveTimeout {
+
+    private final int mMinMillis;
+
+    private final int mMaxMillis;
+
+    /** False until the first sample, which a sample of 0 ms also counts as */
+    private boolean mHasSample;
+
+    private double mSmoothedMillis;
+
+    private double mDeviationMillis;
+
+    private int mTimeoutMillis;
+
+    /**
+     * @param initialMillis is the timeout until the first sample arrives
+     * @param minMillis is the shortest timeout ever used
+     * @param maxMillis is the longest timeout ever used
+     */
+    public AdaptiveTimeout(int initialMillis, int minMillis, int maxMillis) {
+        mMinMillis = minMillis;
+        mMaxMillis = maxMillis;
+        mTimeoutMillis = clamp(initialMillis);
+    }
+
+    //Get the timeout to use for the next request
+    public synchronized int getMillis() {
+        return mTimeoutMillis;
+    }
+
+    /**
+     * Add how long a step that did not time out took
+     */
+    public synchronized void onSample(long millis) {
+        if (!mHasSample) {
+            mHasSample = true;
+            mSmoothedMillis = millis;
+            mDeviationMillis = millis / 2.0;
+        } else {
+            mDeviationMillis = 0.75 * mDeviationMillis + 0.25 * Math.abs(mSmoothedMillis - millis);
+            mSmoothedMillis = 0.875 * mSmoothedMillis + 0.125 * millis;
+        }
+        mTimeoutMillis = clamp((long) (mSmoothedMillis + 4 * mDeviationMillis));
+    }
+
+    /**
+     * Note that a step timed out, which doubles the timeout until new samples bring it down
+     */
+    public synchronized void onTimeout() {
+        mTimeoutMillis = clamp(2L * mTimeoutMillis);
+    }
+
+    private int clamp(long millis) {
+        return (int) Math.max(mMinMillis, Math.min(mMaxMillis, millis));
+    }
+}
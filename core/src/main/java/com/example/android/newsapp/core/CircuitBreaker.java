@@ -0,0 +1,81 @@
+package com.example.android.newsapp.core;
+
+/**
+ * Stops requests to a server that keeps failing. After a number of failures in a row the
+ * circuit opens and requests are refused straight away, so callers fall back to cached data
+ * instead of waiting for timeouts. Once the open period is over one trial request is let
+ * through: if it succeeds the circuit closes, if it fails it opens again. Thread safe.
+ */
+
+public final class CircuitBreaker {
+
+    private final int mFailureThreshold;
+
+    private final long mOpenMillis;
+
+    private int mConsecutiveFailures;
+
+    /** System.nanoTime() until which requests are refused, 0 while closed */
+    private long mOpenUntilNanos;
+
+    /** True while the trial request of a half open circuit is running */
+    private boolean mTrialInFlight;
+
+    /**
+     * @param failureThreshold is the number of failures in a row that opens the circuit
+     * @param openMillis is how long the circuit stays open before a trial request
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        mFailureThreshold = failureThreshold;
+        mOpenMillis = openMillis;
+    }
+
+    /**
+     * Returns true if a request may be sent now. While half open only the first caller is
+     * let through; it must report back with {@link #onSuccess()} or {@link #onFailure()}.
+     */
+    public synchronized boolean allowRequest() {
+        if (mOpenUntilNanos == 0) {
+            return true;
+        }
+        if (System.nanoTime() - mOpenUntilNanos < 0 || mTrialInFlight) {
+            return false;
+        }
+        mTrialInFlight = true;
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        mConsecutiveFailures = 0;
+        mOpenUntilNanos = 0;
+        mTrialInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        mConsecutiveFailures++;
+        if (mTrialInFlight || mConsecutiveFailures >= mFailureThreshold) {
+            open(mOpenMillis);
+        }
+    }
+
+    /**
+     * Open the circuit for at least the given time, e.g. as long as a Retry-After header asks
+     */
+    public synchronized void openFor(long millis) {
+        open(Math.max(millis, 1));
+    }
+
+    //Returns true while requests are being refused
+    public synchronized boolean isOpen() {
+        return mOpenUntilNanos != 0 && System.nanoTime() - mOpenUntilNanos < 0;
+    }
+
+    private void open(long millis) {
+        long until = System.nanoTime() + millis * 1000000L;
+        if (mOpenUntilNanos == 0 || until - mOpenUntilNanos > 0) {
+            //Never 0, which stands for closed
+            mOpenUntilNanos = until != 0 ? until : 1;
+        }
+        mTrialInFlight = false;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.android.newsapp.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of non negative values, e.g. durations in nanoseconds. Values are counted in
+ * power of two buckets, so recording is a few atomic increments without locks or allocation
+ * and percentiles are accurate to within a factor of two.
+ */
+
+public final class Histogram {
+
+    /** Bucket i counts the values that need i bits, so 0 lands in bucket 0 and 2 or 3 in bucket 2 */
+    private static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong mCount = new AtomicLong();
+
+    private final AtomicLong mSum = new AtomicLong();
+
+    private final AtomicLong mMax = new AtomicLong();
+
+    /**
+     * Add a value, negative values are counted as 0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        mBuckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+        mCount.incrementAndGet();
+        mSum.addAndGet(value);
+        long max = mMax.get();
+        while (value > max && !mMax.compareAndSet(max, value)) {
+            max = mMax.get();
+        }
+    }
+
+    /**
+     * Add the time passed since the given {@link System#nanoTime()} reading, in nanoseconds
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    //Get the number of recorded values
+    public long getCount() {
+        return mCount.get();
+    }
+
+    //Get the sum of all recorded values
+    public long getSum() {
+        return mSum.get();
+    }
+
+    //Get the largest recorded value, 0 if there is none
+    public long getMax() {
+        return mMax.get();
+    }
+
+    /**
+     * Returns an upper bound for the given fraction of the recorded values, e.g. 0.99 for the
+     * 99th percentile. The bound is the top of the bucket the percentile falls in, but never
+     * more than the largest recorded value. Returns 0 if nothing was recorded.
+     */
+    public long getPercentile(double fraction) {
+        long count = mCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mBuckets.get(i);
+            if (seen >= rank && seen > 0) {
+                //Bucket i holds the values up to 2^i - 1, the last one up to Long.MAX_VALUE
+                return Math.min((1L << i) - 1, mMax.get());
+            }
+        }
+        return mMax.get();
+    }
+}
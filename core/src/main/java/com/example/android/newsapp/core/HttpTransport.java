@@ -0,0 +1,37 @@
+package com.example.android.newsapp.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Performs the HTTP GET requests of the library. Implementations are expected to reuse
+ * connections and to hand back bodies that are already decompressed.
+ */
+
+public interface HttpTransport {
+
+    /**
+     * Send a GET request for the given url
+     * @param url to request
+     * @param headers extra request headers, may be empty
+     * @return the response, which must be closed once its body has been read
+     */
+    Response get(String url, Map<String, String> headers) throws IOException;
+
+    /**
+     * Status, headers and body of a response. Closing it releases the connection for reuse.
+     */
+    interface Response extends Closeable {
+
+        //Get the HTTP status code
+        int getCode();
+
+        //Get the value of a response header, or null if it was not sent
+        String getHeader(String name);
+
+        //Get the decompressed response body, the error body for unsuccessful responses
+        InputStream getBody() throws IOException;
+    }
+}
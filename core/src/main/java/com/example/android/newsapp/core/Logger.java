@@ -0,0 +1,24 @@
+package com.example.android.newsapp.core;
+
+/**
+ * Receives the errors the core library runs into. Lets the app route them to android.util.Log
+ * while host side code can print them or drop them.
+ */
+
+public interface Logger {
+
+    /** Logger that drops every message */
+    Logger NONE = new Logger() {
+        @Override
+        public void e(String tag, String message, Throwable throwable) {
+        }
+    };
+
+    /**
+     * Log an error
+     * @param tag identifies where the error happened
+     * @param message describes the error
+     * @param throwable that caused the error, may be null
+     */
+    void e(String tag, String message, Throwable throwable);
+}
@@ -0,0 +1,64 @@
+package com.example.android.newsapp.core;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * Counts the bytes read from a stream and the time spent blocked reading them, which tells the
+ * download time of a streamed response apart from the time spent parsing it. Reading stops with
+ * an InterruptedIOException once the reading thread is interrupted, so a cancelled fetch stops
+ * downloading and parsing at the next read.
+ */
+
+final class MeteredInputStream extends FilterInputStream {
+
+    private long mByteCount;
+
+    private long mReadNanos;
+
+    MeteredInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkInterrupted();
+        long start = System.nanoTime();
+        int b = super.read();
+        mReadNanos += System.nanoTime() - start;
+        if (b != -1) {
+            mByteCount++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        checkInterrupted();
+        long start = System.nanoTime();
+        int count = super.read(buffer, offset, length);
+        mReadNanos += System.nanoTime() - start;
+        if (count > 0) {
+            mByteCount += count;
+        }
+        return count;
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Read cancelled");
+        }
+    }
+
+    //Get the number of bytes read so far
+    long getByteCount() {
+        return mByteCount;
+    }
+
+    //Get the time spent inside read calls so far, in nanoseconds
+    long getReadNanos() {
+        return mReadNanos;
+    }
+}
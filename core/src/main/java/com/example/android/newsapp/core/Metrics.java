@@ -0,0 +1,168 @@
+package com.example.android.newsapp.core;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In memory timing spans and counters of the load pipeline. Spans are recorded in nanoseconds
+ * into a {@link Histogram} per stage, counters are plain atomic sums. Everything is lock free,
+ * so it is safe to record from the fetch threads and the main thread at once. Callers on a hot
+ * path should look their histogram up once and keep it.
+ */
+
+public final class Metrics {
+
+    //Stages of a fetch, recorded by NewsClient
+    /** Connecting and sending the request until the response headers arrived, DNS included */
+    public static final String SPAN_FETCH_CONNECT = "fetch.connect";
+    /** Time spent waiting for body bytes while the response was parsed */
+    public static final String SPAN_FETCH_DOWNLOAD = "fetch.download";
+    /** Time spent parsing the response body, without the time waiting for it */
+    public static final String SPAN_FETCH_PARSE = "fetch.parse";
+
+    //Counters recorded by NewsClient
+    public static final String COUNT_REQUESTS = "fetch.requests";
+    public static final String COUNT_NOT_MODIFIED = "fetch.not_modified";
+    public static final String COUNT_ERRORS = "fetch.errors";
+    /** Response body bytes after decompression */
+    public static final String COUNT_BYTES = "fetch.bytes";
+    public static final String COUNT_ARTICLES = "fetch.articles";
+    /** Malformed results left out of a page */
+    public static final String COUNT_SKIPPED = "fetch.skipped";
+    /** Bodies that broke off or were not valid JSON */
+    public static final String COUNT_TRUNCATED = "fetch.truncated";
+
+    //Counters recorded by ResilientTransport
+    /** Attempts that were sent again after a failure */
+    public static final String COUNT_RETRIES = "fetch.retries";
+    /** Requests refused because the circuit was open */
+    public static final String COUNT_CIRCUIT_OPEN = "fetch.circuit_open";
+
+    //Counters recorded by StringPool
+    /** Strings that were replaced by an equal pooled one */
+    public static final String COUNT_INTERN_HITS = "intern.hits";
+    /**
+     * Estimated size of the duplicate strings dropped in favour of a pooled one, in bytes,
+     * added up over every hit. Not the memory saved right now, as articles holding the pooled
+     * strings are dropped as well.
+     */
+    public static final String COUNT_INTERN_DROPPED_BYTES = "intern.dropped_bytes";
+    /**
+     * Distinct strings held by the pool. The pool never drops a string, so this sum is also
+     * its current size.
+     */
+    public static final String COUNT_INTERN_ENTRIES = "intern.entries";
+    /**
+     * Estimated memory the pooled strings take, in bytes. Every article holding one of them
+     * shares it instead of holding its own copy of that size.
+     */
+    public static final String COUNT_INTERN_BYTES = "intern.bytes";
+
+    private final ConcurrentMap<String, Histogram> mSpans = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, AtomicLong> mCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the histogram of the named span, creating it on first use
+     */
+    public Histogram span(String name) {
+        Histogram span = mSpans.get(name);
+        if (span == null) {
+            Histogram created = new Histogram();
+            span = mSpans.putIfAbsent(name, created);
+            if (span == null) {
+                span = created;
+            }
+        }
+        return span;
+    }
+
+    /**
+     * Record the time passed since the given {@link System#nanoTime()} reading in the named span
+     */
+    public void recordSince(String name, long startNanos) {
+        span(name).recordSince(startNanos);
+    }
+
+    /**
+     * Add the given amount to the named counter
+     */
+    public void count(String name, long amount) {
+        AtomicLong counter = mCounters.get(name);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = mCounters.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        counter.addAndGet(amount);
+    }
+
+    //Get the value of the named counter, 0 if nothing was counted yet
+    public long getCount(String name) {
+        AtomicLong counter = mCounters.get(name);
+        return counter != null ? counter.get() : 0;
+    }
+
+    //Get a snapshot of the spans recorded so far, sorted by name
+    public Map<String, Histogram> getSpans() {
+        return new TreeMap<>(mSpans);
+    }
+
+    //Get a snapshot of the counters, sorted by name
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counters = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> counter : mCounters.entrySet()) {
+            counters.put(counter.getKey(), counter.getValue().get());
+        }
+        return counters;
+    }
+
+    /**
+     * Write every span and counter as a JSON object. Span durations are in milliseconds:
+     * <pre>
+     * {"spans": {"fetch.connect": {"count": 3, "mean": 120.5, "p50": 134.2, "p99": 268.4,
+     *  "max": 190.1}}, "counters": {"fetch.bytes": 51234}}
+     * </pre>
+     */
+    public void writeJson(Writer out) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.setIndent("  ");
+        writer.beginObject();
+        writer.name("spans").beginObject();
+        for (Map.Entry<String, Histogram> entry : getSpans().entrySet()) {
+            Histogram span = entry.getValue();
+            long count = span.getCount();
+            writer.name(entry.getKey()).beginObject()
+                    .name("count").value(count)
+                    .name("mean").value(count > 0 ? toMillis(span.getSum()) / count : 0)
+                    .name("p50").value(toMillis(span.getPercentile(0.5)))
+                    .name("p99").value(toMillis(span.getPercentile(0.99)))
+                    .name("max").value(toMillis(span.getMax()))
+                    .endObject();
+        }
+        writer.endObject();
+        writer.name("counters").beginObject();
+        for (Map.Entry<String, Long> counter : getCounters().entrySet()) {
+            writer.name(counter.getKey()).value(counter.getValue());
+        }
+        writer.endObject();
+        writer.endObject();
+        writer.flush();
+    }
+
+    /**
+     * Converts a span value from nanoseconds to milliseconds
+     */
+    public static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.android.newsapp.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs several queries at once on a bounded executor and merges their articles into one list.
+ * A query that fails or does not finish within the timeout is left out, so one slow query
+ * cannot hold back the merged list.
+ */
+
+public class MultiQueryFetcher {
+
+    /**
+     * Newest articles first, articles without a publication date last
+     */
+    public static final Comparator<News> NEWEST_FIRST = new Comparator<News>() {
+        @Override
+        public int compare(News a, News b) {
+            long aMillis = a.getPublishedMillis();
+            long bMillis = b.getPublishedMillis();
+            return aMillis < bMillis ? 1 : (aMillis == bMillis ? 0 : -1);
+        }
+    };
+
+    private final ExecutorService mExecutor;
+
+    private final long mTimeoutMillis;
+
+    /**
+     * Create a new MultiQueryFetcher
+     * @param executor runs the queries, its pool size bounds how many run at once
+     * @param timeoutMillis is how long to wait for the queries before leaving the slow ones out
+     */
+    public MultiQueryFetcher(ExecutorService executor, long timeoutMillis) {
+        mExecutor = executor;
+        mTimeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Run all queries concurrently and return the results of those that finished in time,
+     * in the order the queries were given. Queries that threw, returned null or timed out are
+     * left out; timed out queries are cancelled.
+     */
+    public <T> List<T> fetchAll(List<? extends Callable<T>> queries) throws InterruptedException {
+        return fetchAll(queries, PriorityExecutor.PRIORITY_DEFAULT);
+    }
+
+    /**
+     * Like {@link #fetchAll(List)}, queueing the queries with the given priority if the
+     * executor is a {@link PriorityExecutor}. Lower values run first. Queries the executor
+     * rejects or drops from its queue are left out.
+     */
+    public <T> List<T> fetchAll(List<? extends Callable<T>> queries, int priority)
+            throws InterruptedException {
+        List<Future<T>> futures = new ArrayList<>(queries.size());
+        for (Callable<T> query : queries) {
+            try {
+                futures.add(mExecutor instanceof PriorityExecutor
+                        ? ((PriorityExecutor) mExecutor).submit(query, priority)
+                        : mExecutor.submit(query));
+            } catch (RejectedExecutionException e) {
+                //The queue is full of more urgent work
+            }
+        }
+
+        List<T> results = new ArrayList<>(queries.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(mTimeoutMillis);
+        try {
+            for (Future<T> future : futures) {
+                long remaining = deadline - System.nanoTime();
+                try {
+                    T result = future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                    if (result != null) {
+                        results.add(result);
+                    }
+                } catch (ExecutionException | TimeoutException | CancellationException e) {
+                    future.cancel(true);
+                }
+            }
+        } finally {
+            //Don't leave queries running if the caller was interrupted
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Merge article lists into one list ordered by publication date, newest first. Articles
+     * that appear in more than one list, matched by their webUrl, are only kept once.
+     * A single list is returned as it is, keeping the order the API returned it in.
+     */
+    public static List<News> merge(List<List<News>> articleLists) {
+        if (articleLists.size() == 1) {
+            return articleLists.get(0);
+        }
+
+        int size = 0;
+        for (List<News> articles : articleLists) {
+            size += articles.size();
+        }
+
+        List<News> merged = new ArrayList<>(size);
+        Set<String> urls = new HashSet<>(size * 2);
+        for (List<News> articles : articleLists) {
+            for (News article : articles) {
+                String url = article.getUrl();
+                if (url == null || urls.add(url)) {
+                    merged.add(article);
+                }
+            }
+        }
+        Collections.sort(merged, NEWEST_FIRST);
+        return merged;
+    }
+}
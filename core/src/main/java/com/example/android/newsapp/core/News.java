@@ -0,0 +1,136 @@
+package com.example.android.newsapp.core;
+
+/**
+ * News object represents a news article returned by the Guardian API. The text shown in the
+ * list is worked out once when the object is created, on the loader's background thread, so
+ * binding a row does no string work at all.
+ */
+
+public class News {
+
+    //Title of the article
+    private final String mTitle;
+
+    //Section the article belongs to
+    private final String mSection;
+
+    //Date article was published in epoch millis, PublicationDate.UNKNOWN if not available
+    private final long mPublishedMillis;
+
+    //Author of article, if available
+    private final String mAuthor;
+
+    //URL to the webpage for the article
+    private final String mUrl;
+
+    //URL of a small image for the article, if available
+    private final String mThumbnailUrl;
+
+    //Publication date as shown in the list
+    private final String mDisplayDate;
+
+    //Section as shown in the list, never null
+    private final String mDisplaySection;
+
+    //Author as shown in the list, never null
+    private final String mDisplayAuthor;
+
+    /**
+     * Create a new News object
+     * @param title is the title of the article
+     * @param section is the section the article is located in
+     * @param publishedMillis is the time the article was published in epoch millis,
+     *                        or PublicationDate.UNKNOWN if not available
+     * @param author is the author of the article
+     * @param url is the website URL to where the article is published online
+     */
+
+    public News (String title, String section, long publishedMillis, String author, String url) {
+        this(title, section, publishedMillis, author, url, null);
+    }
+
+    /**
+     * Create a new News object with a thumbnail
+     * @param thumbnailUrl is the URL of a small image for the article, or null if it has none
+     */
+
+    public News (String title, String section, long publishedMillis, String author, String url,
+                 String thumbnailUrl) {
+        mTitle = title;
+        mSection = section;
+        mPublishedMillis = publishedMillis;
+        mAuthor = author;
+        mUrl = url;
+        mThumbnailUrl = thumbnailUrl;
+        mDisplayDate = PublicationDate.formatDate(publishedMillis);
+        mDisplaySection = section != null ? section : "";
+        mDisplayAuthor = author != null ? author : "";
+    }
+
+    //Get the title of the News article
+    public String getTitle() {return mTitle;}
+
+    //Get the section of the News article
+    public String getSection() {return mSection;}
+
+    //Get the publication time of the News article in epoch millis
+    public long getPublishedMillis() {return mPublishedMillis;}
+
+    //Get the name of the author of the News article
+    public String getAuthor() {return mAuthor;}
+
+    //Get the website URL to see the article published online
+    public String getUrl() {return mUrl;}
+
+    //Get the URL of the thumbnail image, null if the article has none
+    public String getThumbnailUrl() {return mThumbnailUrl;}
+
+    //Get the publication date as shown in the list
+    public String getDisplayDate() {return mDisplayDate;}
+
+    //Get the section as shown in the list
+    public String getDisplaySection() {return mDisplaySection;}
+
+    //Get the author as shown in the list
+    public String getDisplayAuthor() {return mDisplayAuthor;}
+
+    /**
+     * Two articles are equal when every field matches, which lets a loader tell whether a
+     * refreshed list actually differs from the one already on screen
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof News)) {
+            return false;
+        }
+        News other = (News) o;
+        return mPublishedMillis == other.mPublishedMillis
+                && equal(mTitle, other.mTitle)
+                && equal(mSection, other.mSection)
+                && equal(mAuthor, other.mAuthor)
+                && equal(mUrl, other.mUrl)
+                && equal(mThumbnailUrl, other.mThumbnailUrl);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hash(mTitle);
+        result = 31 * result + hash(mSection);
+        result = 31 * result + (int) (mPublishedMillis ^ (mPublishedMillis >>> 32));
+        result = 31 * result + hash(mAuthor);
+        result = 31 * result + hash(mUrl);
+        result = 31 * result + hash(mThumbnailUrl);
+        return result;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static int hash(String s) {
+        return s == null ? 0 : s.hashCode();
+    }
+}
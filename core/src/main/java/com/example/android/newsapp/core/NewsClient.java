@@ -0,0 +1,198 @@
+package com.example.android.newsapp.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Requests news data from the Guardian API and parses it as it streams in
+ */
+
+public class NewsClient {
+    private static final String LOG_TAG = NewsClient.class.getSimpleName();
+
+    private final HttpTransport mTransport;
+
+    private final Logger mLogger;
+
+    private final Metrics mMetrics;
+
+    private final StringPool mStringPool;
+
+    /**
+     * Create a new NewsClient
+     * @param transport performs the HTTP requests
+     * @param logger receives request and parse errors
+     */
+    public NewsClient(HttpTransport transport, Logger logger) {
+        this(transport, logger, new Metrics());
+    }
+
+    /**
+     * Create a new NewsClient that records the timing of every fetch stage
+     * @param transport performs the HTTP requests
+     * @param logger receives request and parse errors
+     * @param metrics receives the spans and counters named in {@link Metrics}
+     */
+    public NewsClient(HttpTransport transport, Logger logger, Metrics metrics) {
+        this(transport, logger, metrics, null);
+    }
+
+    /**
+     * Create a new NewsClient that records the timing of every fetch stage and shares
+     * repeated article fields through a pool
+     * @param transport performs the HTTP requests
+     * @param logger receives request and parse errors
+     * @param metrics receives the spans and counters named in {@link Metrics}
+     * @param stringPool interns the section and contributor of every article, may be null
+     */
+    public NewsClient(HttpTransport transport, Logger logger, Metrics metrics, StringPool stringPool) {
+        mTransport = transport;
+        mLogger = logger;
+        mMetrics = metrics;
+        mStringPool = stringPool;
+    }
+
+    /**
+     *  Query the Guardian API and return the list of News objects in the response. The
+     *  validators of a previous response for the same URL may be passed in to make the request
+     *  conditional; either can be null. Returns null if the request failed.
+     */
+    public NewsResponse fetch(String requestUrl, String eTag, String lastModified) {
+        Map<String, String> headers = new HashMap<>();
+        if (eTag != null) {
+            headers.put("If-None-Match", eTag);
+        }
+        if (lastModified != null) {
+            headers.put("If-Modified-Since", lastModified);
+        }
+
+        mMetrics.count(Metrics.COUNT_REQUESTS, 1);
+        HttpTransport.Response response = null;
+        try {
+            long start = System.nanoTime();
+            response = mTransport.get(requestUrl, headers);
+            int responseCode = response.getCode();
+            mMetrics.recordSince(Metrics.SPAN_FETCH_CONNECT, start);
+            if (responseCode == 200) {
+                //If request was successful (code 200) then parse the response as it streams in.
+                //Time blocked reading the body is download time, the rest is parse time
+                List<News> articles = new ArrayList<>();
+                NewsStreamParser.ParseStats stats = new NewsStreamParser.ParseStats();
+                MeteredInputStream body = new MeteredInputStream(response.getBody());
+                long parseStart = System.nanoTime();
+                boolean complete = extractFeaturesFromStream(body, articles, stats);
+                long readNanos = body.getReadNanos();
+                mMetrics.span(Metrics.SPAN_FETCH_DOWNLOAD).record(readNanos);
+                mMetrics.span(Metrics.SPAN_FETCH_PARSE).record(System.nanoTime() - parseStart - readNanos);
+                mMetrics.count(Metrics.COUNT_BYTES, body.getByteCount());
+                mMetrics.count(Metrics.COUNT_ARTICLES, articles.size());
+                mMetrics.count(Metrics.COUNT_SKIPPED, stats.getSkippedCount());
+                if (complete) {
+                    return new NewsResponse(articles, stats.getPageCount(), false,
+                            response.getHeader("ETag"), response.getHeader("Last-Modified"),
+                            stats.getSkippedCount(), false);
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    //Cancelled, the caller no longer wants any of it
+                    return null;
+                }
+                mMetrics.count(Metrics.COUNT_TRUNCATED, 1);
+                if (!articles.isEmpty()) {
+                    //Show what arrived before the cut, but without validators, so the next
+                    //request fetches the whole page instead of confirming part of it
+                    return new NewsResponse(articles, stats.getPageCount(), false, null, null,
+                            stats.getSkippedCount(), true);
+                }
+                //Nothing usable arrived, the caller keeps what it has
+                mMetrics.count(Metrics.COUNT_ERRORS, 1);
+                return null;
+            } else if (responseCode == 304) {
+                //The articles the caller already has are still current
+                mMetrics.count(Metrics.COUNT_NOT_MODIFIED, 1);
+                return new NewsResponse(null, 0, true, eTag, lastModified);
+            }
+            mLogger.e(LOG_TAG, "Error response code: " + responseCode, null);
+        } catch (IOException e) {
+            mLogger.e(LOG_TAG, "Problem retrieving the news JSON results", e);
+        } finally {
+            closeQuietly(response);
+        }
+        mMetrics.count(Metrics.COUNT_ERRORS, 1);
+        return null;
+    }
+
+    /**
+     * Request a single article with show-fields=bodyText and return its plain text body.
+     * Returns null if the request failed or the article has no body.
+     */
+    public String fetchBody(String requestUrl) {
+        mMetrics.count(Metrics.COUNT_REQUESTS, 1);
+        HttpTransport.Response response = null;
+        try {
+            long start = System.nanoTime();
+            response = mTransport.get(requestUrl, Collections.<String, String>emptyMap());
+            int responseCode = response.getCode();
+            mMetrics.recordSince(Metrics.SPAN_FETCH_CONNECT, start);
+            if (responseCode == 200) {
+                MeteredInputStream body = new MeteredInputStream(response.getBody());
+                String bodyText = NewsStreamParser.parseBodyText(body);
+                mMetrics.count(Metrics.COUNT_BYTES, body.getByteCount());
+                return bodyText;
+            }
+            mLogger.e(LOG_TAG, "Error response code: " + responseCode, null);
+        } catch (IOException | IllegalStateException e) {
+            mLogger.e(LOG_TAG, "Problem retrieving the article body", e);
+        } finally {
+            closeQuietly(response);
+        }
+        mMetrics.count(Metrics.COUNT_ERRORS, 1);
+        return null;
+    }
+
+    /**
+     * Add the News objects read token by token from the JSON response stream to the given list.
+     * Each article is added as soon as its object closes, so the response body is never
+     * held in memory as a whole. Malformed results are skipped one by one and counted in stats.
+     * Returns false if the stream broke off or was not valid JSON, in which case the list holds
+     * the articles read before that point.
+     */
+    private boolean extractFeaturesFromStream(InputStream inputStream, final List<News> articles,
+                                              NewsStreamParser.ParseStats stats) {
+        // If the stream breaks off or the JSON is malformed, the parser throws an exception.
+        // Catch it so the app doesn't crash and keep the articles read so far.
+        try {
+            NewsStreamParser.parse(inputStream, mStringPool, new NewsStreamParser.ArticleListener() {
+                @Override
+                public void onArticle(News article) {
+                    articles.add(article);
+                }
+            }, stats);
+            if (stats.getSkippedCount() > 0) {
+                mLogger.e(LOG_TAG, "Skipped " + stats.getSkippedCount() + " malformed results", null);
+            }
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Gson reports malformed JSON and streams that end early as IOExceptions
+            // (MalformedJsonException, EOFException) and unexpected tokens as IllegalStateException
+            mLogger.e(LOG_TAG, "Problem parsing the Guardian API JSON results, kept "
+                    + articles.size() + " articles", e);
+            return false;
+        }
+    }
+
+    private void closeQuietly(HttpTransport.Response response) {
+        if (response == null) {
+            return;
+        }
+        try {
+            response.close();
+        } catch (IOException e) {
+            mLogger.e(LOG_TAG, "Problem closing the response", e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.android.newsapp.core;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A request to the Guardian content API search endpoint. Build one with {@link Builder} and
+ * turn it into the request URL with {@link #toUrl()}.
+ */
+
+public final class NewsQuery {
+
+    /** Name of the search term parameter */
+    public static final String PARAM_QUERY_TERM = "q";
+
+    /** Name of the result order parameter */
+    public static final String PARAM_ORDER_BY = "order-by";
+
+    /** Name of the result page parameter */
+    public static final String PARAM_PAGE = "page";
+
+    /** Name of the parameter limiting results to those published at or after a time */
+    public static final String PARAM_FROM_DATE = "from-date";
+
+    /** Order of the results with the most recently published first */
+    public static final String ORDER_BY_NEWEST = "newest";
+
+    private final String mBaseUrl;
+
+    private final Map<String, String> mParameters;
+
+    private NewsQuery(Builder builder) {
+        mBaseUrl = builder.mBaseUrl;
+        mParameters = new LinkedHashMap<>(builder.mParameters);
+    }
+
+    //Get the value of a query parameter, or null if it is not set
+    public String getParameter(String name) {
+        return mParameters.get(name);
+    }
+
+    /**
+     * Returns the request URL, with every parameter percent encoded in the order it was set
+     */
+    public String toUrl() {
+        StringBuilder url = new StringBuilder(mBaseUrl);
+        char separator = mBaseUrl.indexOf('?') < 0 ? '?' : '&';
+        for (Map.Entry<String, String> parameter : mParameters.entrySet()) {
+            url.append(separator)
+                    .append(encode(parameter.getKey()))
+                    .append('=')
+                    .append(encode(parameter.getValue()));
+            separator = '&';
+        }
+        return url.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toUrl();
+    }
+
+    private static String encode(String value) {
+        try {
+            //URLEncoder encodes for forms, spaces belong in a query as %20
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            //Every JVM supports UTF-8
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Builds a NewsQuery. Parameters left unset are not sent, so the API uses its defaults.
+     */
+    public static final class Builder {
+
+        private final String mBaseUrl;
+
+        private final Map<String, String> mParameters = new LinkedHashMap<>();
+
+        /**
+         * @param baseUrl is the search endpoint, e.g. https://content.guardianapis.com/search
+         */
+        public Builder(String baseUrl) {
+            mBaseUrl = baseUrl;
+        }
+
+        //Search term, the q parameter
+        public Builder queryTerm(String queryTerm) {
+            return parameter(PARAM_QUERY_TERM, queryTerm);
+        }
+
+        //Section to search in, e.g. world or sport
+        public Builder section(String section) {
+            return parameter("section", section);
+        }
+
+        //Result order, e.g. newest or relevance
+        public Builder orderBy(String orderBy) {
+            return parameter(PARAM_ORDER_BY, orderBy);
+        }
+
+        //Key the request is made with
+        public Builder apiKey(String apiKey) {
+            return parameter("api-key", apiKey);
+        }
+
+        //Tag types to include with every result, e.g. contributor. None removes the parameter
+        public Builder showTags(String... types) {
+            return parameter("show-tags", join(types));
+        }
+
+        //Fields to include with every result on top of the default ones, e.g. byline or
+        //bodyText. None removes the parameter
+        public Builder showFields(String... fields) {
+            return parameter("show-fields", join(fields));
+        }
+
+        //Number of results per page
+        public Builder pageSize(int pageSize) {
+            return parameter("page-size", String.valueOf(pageSize));
+        }
+
+        //Result page to return, starting at 1
+        public Builder page(int page) {
+            return parameter(PARAM_PAGE, String.valueOf(page));
+        }
+
+        //Only return results published at or after this date or UTC timestamp, e.g.
+        //2018-09-05 or 2018-09-05T21:08:41Z
+        public Builder fromDate(String fromDate) {
+            return parameter(PARAM_FROM_DATE, fromDate);
+        }
+
+        /**
+         * Set any other API parameter. A null value removes the parameter.
+         */
+        public Builder parameter(String name, String value) {
+            if (value == null) {
+                mParameters.remove(name);
+            } else {
+                mParameters.put(name, value);
+            }
+            return this;
+        }
+
+        public NewsQuery build() {
+            return new NewsQuery(this);
+        }
+
+        private static String join(String[] values) {
+            if (values.length == 0) {
+                return null;
+            }
+            StringBuilder joined = new StringBuilder(values[0]);
+            for (int i = 1; i < values.length; i++) {
+                joined.append(',').append(values[i]);
+            }
+            return joined.toString();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.android.newsapp.core;
+
+import java.util.List;
+
+/**
+ * Result of a Guardian API request. Either carries the freshly parsed articles together
+ * with the validators the server sent for them, or says that the articles the caller
+ * already has are still current (HTTP 304). A response whose body broke off carries the
+ * articles read before the cut and no validators.
+ */
+
+public final class NewsResponse {
+
+    private final List<News> mArticles;
+    private final boolean mNotModified;
+    private final String mETag;
+    private final String mLastModified;
+    private final int mPageCount;
+    private final int mSkippedCount;
+    private final boolean mTruncated;
+
+    NewsResponse(List<News> articles, int pageCount, boolean notModified,
+                 String eTag, String lastModified) {
+        this(articles, pageCount, notModified, eTag, lastModified, 0, false);
+    }
+
+    NewsResponse(List<News> articles, int pageCount, boolean notModified,
+                 String eTag, String lastModified, int skippedCount, boolean truncated) {
+        mArticles = articles;
+        mPageCount = pageCount;
+        mNotModified = notModified;
+        mETag = eTag;
+        mLastModified = lastModified;
+        mSkippedCount = skippedCount;
+        mTruncated = truncated;
+    }
+
+    //Articles parsed from the response, null if the server answered 304
+    public List<News> getArticles() {return mArticles;}
+
+    //Total number of result pages for the query, 0 if unknown
+    public int getPageCount() {return mPageCount;}
+
+    //True if the previously fetched articles are still current
+    public boolean isNotModified() {return mNotModified;}
+
+    //ETag header of the response, if the server sent one
+    public String getETag() {return mETag;}
+
+    //Last-Modified header of the response, if the server sent one
+    public String getLastModified() {return mLastModified;}
+
+    //Number of malformed results that were left out of the articles
+    public int getSkippedCount() {return mSkippedCount;}
+
+    //True if the body broke off, so the articles are only the first part of the page
+    public boolean isTruncated() {return mTruncated;}
+}
@@ -0,0 +1,212 @@
+package com.example.android.newsapp.core;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A list of articles in a compact binary format, small enough to be read while the first
+ * screen is drawn. The layout is, with big endian numbers:
+ * <pre>
+ * int magic, int version, string key, long savedAt, int pageCount, int articleCount,
+ * then per article: string title, string section, long publishedMillis, string author, string url,
+ * string thumbnailUrl
+ * </pre>
+ * A string is an int byte length followed by that many bytes of UTF-8, -1 standing for null.
+ * The key says what the articles were loaded for, e.g. the query URLs, so a reader can tell a
+ * snapshot of a different feed apart.
+ */
+
+public final class NewsSnapshot {
+
+    /** "NWSS" */
+    private static final int MAGIC = 0x4e575353;
+
+    /** Incremented whenever the layout changes, snapshots of other versions are not read */
+    public static final int VERSION = 2;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final String mKey;
+    private final long mSavedAt;
+    private final int mPageCount;
+    private final List<News> mArticles;
+
+    /**
+     * @param key says what the articles were loaded for
+     * @param savedAt is the time the articles were current, in epoch millis
+     * @param pageCount is the number of result pages of the feed, 0 if unknown
+     * @param articles to store
+     */
+    public NewsSnapshot(String key, long savedAt, int pageCount, List<News> articles) {
+        mKey = key;
+        mSavedAt = savedAt;
+        mPageCount = pageCount;
+        mArticles = Collections.unmodifiableList(new ArrayList<>(articles));
+    }
+
+    public String getKey() {return mKey;}
+
+    public long getSavedAt() {return mSavedAt;}
+
+    public int getPageCount() {return mPageCount;}
+
+    public List<News> getArticles() {return mArticles;}
+
+    /**
+     * Write the snapshot to the given stream, which is left open
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        writeString(data, mKey);
+        data.writeLong(mSavedAt);
+        data.writeInt(mPageCount);
+        data.writeInt(mArticles.size());
+        for (News article : mArticles) {
+            writeString(data, article.getTitle());
+            writeString(data, article.getSection());
+            data.writeLong(article.getPublishedMillis());
+            writeString(data, article.getAuthor());
+            writeString(data, article.getUrl());
+            writeString(data, article.getThumbnailUrl());
+        }
+        data.flush();
+    }
+
+    /**
+     * Write the snapshot to a file. It is written next to the file first and then renamed, so a
+     * reader never sees half a snapshot.
+     */
+    public void writeTo(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temp);
+        try {
+            writeTo(out);
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not rename " + temp + " to " + file);
+        }
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    /**
+     * Read a snapshot file by mapping it into memory, so it is paged in with one sequential read
+     * @throws IOException if the file can not be read, is of another version or is corrupt
+     */
+    public static NewsSnapshot read(File file) throws IOException {
+        return read(file, null);
+    }
+
+    /**
+     * Read a snapshot file, taking the section and author of every article from the given
+     * pool, so repeated values share one instance
+     * @param pool to intern repeated fields with, or null to keep every read string
+     * @throws IOException if the file can not be read, is of another version or is corrupt
+     */
+    public static NewsSnapshot read(File file, StringPool pool) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = input.getChannel();
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), pool);
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Read a snapshot from the buffer's position on
+     * @throws IOException if the buffer holds another version or is corrupt
+     */
+    public static NewsSnapshot read(ByteBuffer buffer) throws IOException {
+        return read(buffer, null);
+    }
+
+    /**
+     * Read a snapshot from the buffer's position on, interning the section and author of every
+     * article in the given pool unless it is null
+     * @throws IOException if the buffer holds another version or is corrupt
+     */
+    public static NewsSnapshot read(ByteBuffer buffer, StringPool pool) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a news snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            String key = readString(buffer);
+            long savedAt = buffer.getLong();
+            int pageCount = buffer.getInt();
+            int count = buffer.getInt();
+            if (count < 0) {
+                throw new IOException("Corrupt snapshot");
+            }
+
+            //A string needs at least its length, so a corrupt count can not allocate much
+            List<News> articles = new ArrayList<>(Math.min(count, buffer.remaining() / 4));
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < count; i++) {
+                String title = readString(buffer, scratch);
+                String section = readString(buffer, scratch);
+                long publishedMillis = buffer.getLong();
+                String author = readString(buffer, scratch);
+                String url = readString(buffer, scratch);
+                String thumbnailUrl = readString(buffer, scratch);
+                if (pool != null) {
+                    section = pool.intern(section);
+                    author = pool.intern(author);
+                }
+                articles.add(new News(title, section, publishedMillis, author, url, thumbnailUrl));
+            }
+            return new NewsSnapshot(key, savedAt, pageCount, articles);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated snapshot", e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        return readString(buffer, new byte[0]);
+    }
+
+    /**
+     * Read a string, decoding through the scratch array when it is large enough
+     */
+    private static String readString(ByteBuffer buffer, byte[] scratch) throws IOException {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Corrupt snapshot");
+        }
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, UTF_8);
+    }
+}
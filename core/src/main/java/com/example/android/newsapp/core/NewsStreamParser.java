@@ -0,0 +1,257 @@
+package com.example.android.newsapp.core;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Token based parser for Guardian API search responses. Reads response.results[] straight
+ * off the input stream and hands each article to a listener as soon as its object closes,
+ * without building a tree for the whole response.
+ */
+
+public final class NewsStreamParser {
+
+    /**
+     * Receives every article as soon as it has been read from the stream
+     */
+    public interface ArticleListener {
+        void onArticle(News article);
+    }
+
+    /**
+     * What a parse found besides the articles. It is filled in while the stream is read, so
+     * it stays valid when the stream breaks off half way.
+     */
+    public static final class ParseStats {
+
+        private int mPageCount;
+        private int mSkippedCount;
+
+        //Get the total number of result pages for the query, 0 if the response did not say
+        public int getPageCount() {return mPageCount;}
+
+        //Get the number of results that were skipped because they were malformed
+        public int getSkippedCount() {return mSkippedCount;}
+    }
+
+    private NewsStreamParser() {
+    }
+
+    /**
+     * Parse a search response from the given stream. Every field except the ones we show
+     * is skipped without being read into memory. The author is the byline field if the
+     * response was requested with show-fields=byline, otherwise the first contributor tag.
+     * The thumbnail is only sent for show-fields=thumbnail.
+     * @return the total number of result pages for the query, or 0 if the response did not say
+     */
+    public static int parse(InputStream inputStream, ArticleListener listener) throws IOException {
+        return parse(inputStream, null, listener, null);
+    }
+
+    /**
+     * Parse a search response from the given stream, taking the section and contributor of
+     * every article from the given pool, so repeated values share one instance.
+     * <p>
+     * Results are checked one by one: a result that is not an object, has fields of the wrong
+     * type or lacks a title or URL is skipped and counted, and the ones after it are still read.
+     * Only a stream that is cut off or not JSON at all ends the parse, with an IOException;
+     * every article read up to that point has already been handed to the listener.
+     * @param pool to intern repeated fields with, or null to keep every parsed string
+     * @param stats receives the page count and the number of skipped results, may be null
+     * @return the total number of result pages for the query, or 0 if the response did not say
+     */
+    public static int parse(InputStream inputStream, StringPool pool, ArticleListener listener,
+                            ParseStats stats) throws IOException {
+        if (stats == null) {
+            stats = new ParseStats();
+        }
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("response".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                readResponse(reader, pool, listener, stats);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return stats.mPageCount;
+    }
+
+    /**
+     * Parse a single item response requested with show-fields=bodyText and return the plain
+     * text body of the article, or null if the response has none. Everything but the body
+     * is skipped.
+     */
+    public static String parseBodyText(InputStream inputStream) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        String bodyText = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("response".equals(reader.nextName())) {
+                bodyText = readObjectPath(reader, "content", "fields", "bodyText");
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return bodyText;
+    }
+
+    /**
+     * Read the string at the given path of nested object members, skipping everything else.
+     * Returns null if the path does not lead to a string.
+     */
+    private static String readObjectPath(JsonReader reader, String... path) throws IOException {
+        return readObjectPath(reader, path, 0);
+    }
+
+    private static String readObjectPath(JsonReader reader, String[] path, int depth) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String value = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!path[depth].equals(reader.nextName())) {
+                reader.skipValue();
+            } else if (depth == path.length - 1) {
+                value = nextStringOrNull(reader);
+            } else {
+                value = readObjectPath(reader, path, depth + 1);
+            }
+        }
+        reader.endObject();
+        return value;
+    }
+
+    private static void readResponse(JsonReader reader, StringPool pool, ArticleListener listener,
+                                     ParseStats stats) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("results".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    News article = null;
+                    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        article = readArticle(reader, pool);
+                    } else {
+                        reader.skipValue();
+                    }
+                    if (article != null) {
+                        listener.onArticle(article);
+                    } else {
+                        stats.mSkippedCount++;
+                    }
+                }
+                reader.endArray();
+            } else if ("pages".equals(name) && reader.peek() == JsonToken.NUMBER) {
+                stats.mPageCount = (int) reader.nextDouble();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Read one result object. Returns null if it has no title or URL, which a row can not
+     * be shown or opened without.
+     */
+    private static News readArticle(JsonReader reader, StringPool pool) throws IOException {
+        String title = null;
+        String section = null;
+        String date = null;
+        String author = null;
+        String byline = null;
+        String url = null;
+        String thumbnail = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("webTitle".equals(name)) {
+                title = nextStringOrNull(reader);
+            } else if ("sectionName".equals(name)) {
+                section = nextStringOrNull(reader);
+            } else if ("webPublicationDate".equals(name)) {
+                date = nextStringOrNull(reader);
+            } else if ("webUrl".equals(name)) {
+                url = nextStringOrNull(reader);
+            } else if ("tags".equals(name)) {
+                author = readFirstTagTitle(reader);
+            } else if ("fields".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String field = reader.nextName();
+                    if ("byline".equals(field)) {
+                        byline = nextStringOrNull(reader);
+                    } else if ("thumbnail".equals(field)) {
+                        thumbnail = nextStringOrNull(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (title == null || url == null) {
+            return null;
+        }
+
+        //Articles without a byline or contributor, e.g. agency copy, keep a null author
+        if (byline != null) {
+            author = byline;
+        }
+        if (pool != null) {
+            section = pool.intern(section);
+            author = pool.intern(author);
+        }
+        return new News(title, section, PublicationDate.parse(date), author, url, thumbnail);
+    }
+
+    /**
+     * The contributor is the first entry of the tags array, the remaining tags are skipped.
+     * An empty array gives a null author for this article only.
+     */
+    private static String readFirstTagTitle(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+
+        String author = null;
+        reader.beginArray();
+        if (reader.hasNext()) {
+            author = readObjectPath(reader, "webTitle");
+        }
+        while (reader.hasNext()) {
+            reader.skipValue();
+        }
+        reader.endArray();
+        return author;
+    }
+
+    /**
+     * Read a string or number as a string. Any other value, e.g. an object where a string
+     * was expected, is skipped and read as null.
+     */
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+}
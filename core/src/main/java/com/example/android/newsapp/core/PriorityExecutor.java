@@ -0,0 +1,138 @@
+package com.example.android.newsapp.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed size thread pool that runs queued tasks by priority, lowest value first and in the
+ * order they were submitted within a priority. The queue is bounded: when it is full, a new
+ * task takes the place of the least urgent queued one, which is cancelled, or is rejected with
+ * a RejectedExecutionException if nothing queued is less urgent.
+ */
+
+public class PriorityExecutor extends ThreadPoolExecutor {
+
+    /** Priority of tasks submitted without one */
+    public static final int PRIORITY_DEFAULT = 0;
+
+    private final AtomicLong mSequence = new AtomicLong();
+
+    /**
+     * @param threadCount is the number of tasks run at the same time
+     * @param queueCapacity is the number of tasks waiting at most
+     * @param threadFactory creates the pool's threads
+     */
+    public PriorityExecutor(int threadCount, int queueCapacity, ThreadFactory threadFactory) {
+        super(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                new BoundedPriorityQueue(queueCapacity), threadFactory);
+    }
+
+    /**
+     * Queue a task with the given priority, lower values run first
+     * @throws RejectedExecutionException if the queue is full of tasks at least as urgent
+     */
+    public <T> Future<T> submit(Callable<T> task, int priority) {
+        PriorityTask<T> future = new PriorityTask<>(task, priority, mSequence.getAndIncrement());
+        execute(future);
+        return future;
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return submit(task, PRIORITY_DEFAULT);
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        return submit(Executors.callable(task), PRIORITY_DEFAULT);
+    }
+
+    @Override
+    public <T> Future<T> submit(Runnable task, T result) {
+        return submit(Executors.callable(task, result), PRIORITY_DEFAULT);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        //Only tasks that know their priority can be queued
+        if (!(command instanceof PriorityTask)) {
+            command = new PriorityTask<>(Executors.callable(command), PRIORITY_DEFAULT,
+                    mSequence.getAndIncrement());
+        }
+        super.execute(command);
+    }
+
+    /**
+     * A task along with its priority and submission order
+     */
+    private static final class PriorityTask<T> extends FutureTask<T>
+            implements Comparable<PriorityTask<?>> {
+
+        private final int mPriority;
+
+        private final long mSequence;
+
+        PriorityTask(Callable<T> callable, int priority, long sequence) {
+            super(callable);
+            mPriority = priority;
+            mSequence = sequence;
+        }
+
+        @Override
+        public int compareTo(PriorityTask<?> other) {
+            if (mPriority != other.mPriority) {
+                return mPriority < other.mPriority ? -1 : 1;
+            }
+            return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+    }
+
+    /**
+     * Priority queue that holds a limited number of tasks, making room for an urgent task by
+     * dropping the least urgent one
+     */
+    private static final class BoundedPriorityQueue extends PriorityBlockingQueue<Runnable> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int mCapacity;
+
+        /** Makes the size check and the insert of an offer atomic */
+        private final Object mOfferLock = new Object();
+
+        BoundedPriorityQueue(int capacity) {
+            mCapacity = capacity;
+        }
+
+        @Override
+        public boolean offer(Runnable task) {
+            synchronized (mOfferLock) {
+                if (size() >= mCapacity) {
+                    PriorityTask<?> least = null;
+                    for (Runnable queued : this) {
+                        if (least == null || ((PriorityTask<?>) queued).compareTo(least) > 0) {
+                            least = (PriorityTask<?>) queued;
+                        }
+                    }
+                    if (least != null && ((PriorityTask<?>) task).compareTo(least) > 0) {
+                        return false;
+                    }
+                    //Workers may have taken the least urgent task in the meantime, which
+                    //makes room as well
+                    if (least != null && remove(least)) {
+                        least.cancel(false);
+                    }
+                }
+                return super.offer(task);
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.android.newsapp.core;
+
+/**
+ * Converts Guardian publication timestamps ("2018-09-05T21:08:41Z") to epoch millis and back
+ * to the date shown in the list. Done by hand instead of with SimpleDateFormat or Calendar,
+ * which are slow to create and allocate heavily for every article.
+ */
+
+public final class PublicationDate {
+
+    /** Returned for timestamps that are missing or cannot be read */
+    public static final long UNKNOWN = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private PublicationDate() {
+    }
+
+    /**
+     * Returns the epoch millis of an ISO-8601 timestamp of the form yyyy-MM-dd, optionally
+     * followed by THH:mm[:ss[.SSS]] and Z or an hh:mm offset. Returns {@link #UNKNOWN} if
+     * the timestamp is null or malformed.
+     */
+    public static long parse(String timestamp) {
+        if (timestamp == null || timestamp.length() < 10
+                || timestamp.charAt(4) != '-' || timestamp.charAt(7) != '-') {
+            return UNKNOWN;
+        }
+        int year = digits(timestamp, 0, 4);
+        int month = digits(timestamp, 5, 2);
+        int day = digits(timestamp, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return UNKNOWN;
+        }
+        long millis = daysFromCivil(year, month, day) * MILLIS_PER_DAY;
+        int length = timestamp.length();
+        if (length == 10) {
+            return millis;
+        }
+
+        //Time of day
+        if (timestamp.charAt(10) != 'T' || length < 16 || timestamp.charAt(13) != ':') {
+            return UNKNOWN;
+        }
+        int hour = digits(timestamp, 11, 2);
+        int minute = digits(timestamp, 14, 2);
+        if (hour < 0 || minute < 0) {
+            return UNKNOWN;
+        }
+        millis += (hour * 60L + minute) * 60 * 1000;
+        int pos = 16;
+        if (pos < length && timestamp.charAt(pos) == ':') {
+            int second = digits(timestamp, pos + 1, 2);
+            if (second < 0) {
+                return UNKNOWN;
+            }
+            millis += second * 1000L;
+            pos += 3;
+            if (pos < length && timestamp.charAt(pos) == '.') {
+                int fractionStart = ++pos;
+                while (pos < length && Character.isDigit(timestamp.charAt(pos))) {
+                    pos++;
+                }
+                int fractionDigits = Math.min(pos - fractionStart, 3);
+                int fraction = fractionDigits > 0 ? digits(timestamp, fractionStart, fractionDigits) : 0;
+                for (int i = fractionDigits; i < 3; i++) {
+                    fraction *= 10;
+                }
+                millis += fraction;
+            }
+        }
+
+        //Time zone, local times without one are taken as UTC
+        if (pos == length) {
+            return millis;
+        }
+        char zone = timestamp.charAt(pos);
+        if (zone == 'Z' && pos + 1 == length) {
+            return millis;
+        }
+        if ((zone == '+' || zone == '-') && length - pos >= 6 && timestamp.charAt(pos + 3) == ':') {
+            int offsetHours = digits(timestamp, pos + 1, 2);
+            int offsetMinutes = digits(timestamp, pos + 4, 2);
+            if (offsetHours < 0 || offsetMinutes < 0) {
+                return UNKNOWN;
+            }
+            long offset = (offsetHours * 60L + offsetMinutes) * 60 * 1000;
+            return zone == '+' ? millis - offset : millis + offset;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Returns the UTC date of the given epoch millis as yyyy-MM-dd, or an empty string for
+     * {@link #UNKNOWN}
+     */
+    public static String formatDate(long millis) {
+        if (millis == UNKNOWN) {
+            return "";
+        }
+        long days = floorDiv(millis, MILLIS_PER_DAY);
+
+        //Civil date from days since 1970-01-01, see http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        char[] chars = new char[10];
+        chars[0] = (char) ('0' + (year / 1000) % 10);
+        chars[1] = (char) ('0' + (year / 100) % 10);
+        chars[2] = (char) ('0' + (year / 10) % 10);
+        chars[3] = (char) ('0' + year % 10);
+        chars[4] = '-';
+        chars[5] = (char) ('0' + month / 10);
+        chars[6] = (char) ('0' + month % 10);
+        chars[7] = '-';
+        chars[8] = (char) ('0' + day / 10);
+        chars[9] = (char) ('0' + day % 10);
+        return new String(chars);
+    }
+
+    /**
+     * Returns the given epoch millis as a UTC timestamp in the API's format, e.g.
+     * 2018-09-05T21:08:41Z, or an empty string for {@link #UNKNOWN}. Milliseconds are dropped.
+     */
+    public static String formatTimestamp(long millis) {
+        if (millis == UNKNOWN) {
+            return "";
+        }
+        int secondOfDay = (int) ((millis - floorDiv(millis, MILLIS_PER_DAY) * MILLIS_PER_DAY) / 1000);
+        int hour = secondOfDay / 3600;
+        int minute = secondOfDay / 60 % 60;
+        int second = secondOfDay % 60;
+
+        StringBuilder timestamp = new StringBuilder(20).append(formatDate(millis)).append('T');
+        timestamp.append((char) ('0' + hour / 10)).append((char) ('0' + hour % 10)).append(':');
+        timestamp.append((char) ('0' + minute / 10)).append((char) ('0' + minute % 10)).append(':');
+        timestamp.append((char) ('0' + second / 10)).append((char) ('0' + second % 10)).append('Z');
+        return timestamp.toString();
+    }
+
+    /**
+     * Days since 1970-01-01 of the given civil date
+     */
+    private static long daysFromCivil(long year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = floorDiv(year, 400);
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Math.floorDiv is only available from API 24
+     */
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        if ((x % y != 0) && ((x < 0) != (y < 0))) {
+            q--;
+        }
+        return q;
+    }
+
+    /**
+     * Reads a fixed number of decimal digits, returns -1 if any of them is not a digit
+     */
+    private static int digits(String s, int start, int count) {
+        if (start + count > s.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.android.newsapp.core;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of the requests currently in flight. Callers asking for a URL that is already being
+ * fetched wait for that fetch and get its result instead of starting their own. URLs are
+ * compared after {@link #normalize normalizing} them, so the order of the query parameters
+ * does not matter.
+ */
+
+public class RequestCoalescer<T> {
+
+    private final ConcurrentMap<String, InFlight<T>> mInFlight = new ConcurrentHashMap<>();
+
+    /** Callers that attached to a fetch already in flight */
+    private final AtomicLong mHits = new AtomicLong();
+
+    /** Callers that had to start a fetch */
+    private final AtomicLong mMisses = new AtomicLong();
+
+    /**
+     * Run the fetch for the given URL, or wait for the identical fetch another caller already
+     * started. The fetch runs on the calling thread of the first caller. If that caller is
+     * interrupted while it runs, e.g. because its load was cancelled, the fetch may have
+     * stopped early, so the callers waiting on it run the fetch again instead of sharing it.
+     * @throws ExecutionException if the fetch threw, for every caller waiting on it
+     */
+    public T execute(String url, Callable<T> fetch) throws InterruptedException, ExecutionException {
+        String key = normalize(url);
+        while (true) {
+            InFlight<T> task = new InFlight<>(fetch);
+            InFlight<T> inFlight = mInFlight.putIfAbsent(key, task);
+            if (inFlight == null) {
+                mMisses.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    mInFlight.remove(key, task);
+                }
+                return task.get();
+            }
+
+            mHits.incrementAndGet();
+            T result;
+            try {
+                result = inFlight.get();
+            } catch (ExecutionException e) {
+                if (!inFlight.mAbandoned) {
+                    throw e;
+                }
+                result = null;
+            }
+            if (!inFlight.mAbandoned) {
+                return result;
+            }
+            //The caller running it was cancelled, start over with a fetch of our own
+            mInFlight.remove(key, inFlight);
+        }
+    }
+
+    /**
+     * A fetch that notes whether the thread running it was interrupted, before the callers
+     * waiting for it are woken up
+     */
+    private static final class InFlight<T> extends FutureTask<T> {
+
+        volatile boolean mAbandoned;
+
+        InFlight(Callable<T> fetch) {
+            super(fetch);
+        }
+
+        @Override
+        protected void set(T result) {
+            mAbandoned = Thread.currentThread().isInterrupted();
+            super.set(result);
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            mAbandoned = Thread.currentThread().isInterrupted();
+            super.setException(t);
+        }
+    }
+
+    //Get the number of callers that were answered by a fetch already in flight
+    public long getHitCount() {return mHits.get();}
+
+    //Get the number of callers that started a fetch of their own
+    public long getMissCount() {return mMisses.get();}
+
+    //Get the number of fetches running right now
+    public int getInFlightCount() {return mInFlight.size();}
+
+    /**
+     * Returns the URL with its scheme and host in lower case, without a fragment and with its
+     * query parameters sorted, so equivalent requests map to the same key
+     */
+    public static String normalize(String url) {
+        int fragment = url.indexOf('#');
+        if (fragment >= 0) {
+            url = url.substring(0, fragment);
+        }
+
+        int queryStart = url.indexOf('?');
+        String base = queryStart >= 0 ? url.substring(0, queryStart) : url;
+        int authorityEnd = base.indexOf('/', base.indexOf("://") + 3);
+        if (authorityEnd < 0) {
+            authorityEnd = base.length();
+        }
+        base = base.substring(0, authorityEnd).toLowerCase(Locale.US) + base.substring(authorityEnd);
+        if (queryStart < 0 || queryStart == url.length() - 1) {
+            return base;
+        }
+
+        String[] parameters = url.substring(queryStart + 1).split("&");
+        Arrays.sort(parameters);
+        StringBuilder normalized = new StringBuilder(url.length()).append(base);
+        char separator = '?';
+        for (String parameter : parameters) {
+            if (!parameter.isEmpty()) {
+                normalized.append(separator).append(parameter);
+                separator = '&';
+            }
+        }
+        return normalized.toString();
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.android.newsapp.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * HttpTransport that retries failed requests and stops sending them while the server is
+ * degraded. Every request of this library is an idempotent GET, so it is always safe to send
+ * again.
+ * <ul>
+ * <li>Connection errors, timeouts and 5xx responses are retried a bounded number of times,
+ * waiting a random time up to an exponentially growing cap ("full jitter"), so clients that
+ * failed together do not retry together.</li>
+ * <li>429 and 503 responses with a Retry-After header wait as long as the server asks, if that
+ * is short enough. A longer wait opens the circuit for that time instead.</li>
+ * <li>Every failed attempt is reported to a {@link CircuitBreaker}. While it is open requests
+ * fail at once with {@link CircuitOpenException}, so callers show cached data right away.</li>
+ * </ul>
+ */
+
+public class ResilientTransport implements HttpTransport {
+
+    /**
+     * Thrown instead of sending a request while the circuit is open
+     */
+    public static final class CircuitOpenException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        CircuitOpenException() {
+            super("Circuit open, the server failed too often");
+        }
+    }
+
+    private final HttpTransport mTransport;
+
+    private final CircuitBreaker mBreaker;
+
+    private final Metrics mMetrics;
+
+    private final int mMaxAttempts;
+
+    private final long mBaseBackoffMillis;
+
+    private final long mMaxBackoffMillis;
+
+    private final Random mRandom = new Random();
+
+    /**
+     * Create a transport making up to 3 attempts, backing off from 500ms up to 4s
+     * @param transport sends the requests
+     * @param breaker is told about every attempt, share one per server
+     * @param metrics receives the {@link Metrics#COUNT_RETRIES} and
+     *                {@link Metrics#COUNT_CIRCUIT_OPEN} counters
+     */
+    public ResilientTransport(HttpTransport transport, CircuitBreaker breaker, Metrics metrics) {
+        this(transport, breaker, metrics, 3, 500, 4000);
+    }
+
+    /**
+     * @param maxAttempts is the number of attempts per request, including the first
+     * @param baseBackoffMillis is the longest wait before the first retry
+     * @param maxBackoffMillis is the longest wait before any retry, also the longest
+     *                         Retry-After that is waited for
+     */
+    public ResilientTransport(HttpTransport transport, CircuitBreaker breaker, Metrics metrics,
+                              int maxAttempts, long baseBackoffMillis, long maxBackoffMillis) {
+        mTransport = transport;
+        mBreaker = breaker;
+        mMetrics = metrics;
+        mMaxAttempts = maxAttempts;
+        mBaseBackoffMillis = baseBackoffMillis;
+        mMaxBackoffMillis = maxBackoffMillis;
+    }
+
+    @Override
+    public Response get(String url, Map<String, String> headers) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            if (!mBreaker.allowRequest()) {
+                mMetrics.count(Metrics.COUNT_CIRCUIT_OPEN, 1);
+                throw new CircuitOpenException();
+            }
+
+            Response response = null;
+            try {
+                response = mTransport.get(url, headers);
+            } catch (IOException e) {
+                //A cancelled request is not retried
+                if (attempt >= mMaxAttempts || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                retryAfter(backoffMillis(attempt));
+                continue;
+            } finally {
+                //Counts anything thrown as a failure, which also ends a half open trial
+                if (response == null) {
+                    mBreaker.onFailure();
+                }
+            }
+
+            int code = response.getCode();
+            if (!isRetryable(code)) {
+                //Any other answer, client errors included, means the server is up
+                mBreaker.onSuccess();
+                return response;
+            }
+            mBreaker.onFailure();
+
+            long retryAfterMillis = code == 429 || code == 503
+                    ? parseRetryAfter(response.getHeader("Retry-After")) : -1;
+            if (retryAfterMillis > mMaxBackoffMillis) {
+                //Too long to keep the user waiting, refuse requests until then
+                mBreaker.openFor(retryAfterMillis);
+                return response;
+            }
+            if (attempt >= mMaxAttempts) {
+                return response;
+            }
+            closeQuietly(response);
+            retryAfter(retryAfterMillis >= 0 ? retryAfterMillis : backoffMillis(attempt));
+        }
+    }
+
+    private static boolean isRetryable(int code) {
+        return code == 429 || code == 500 || code == 502 || code == 503 || code == 504;
+    }
+
+    /**
+     * Returns a random wait between 0 and base * 2^(attempt - 1), capped at the maximum
+     */
+    private long backoffMillis(int attempt) {
+        long cap = Math.min(mMaxBackoffMillis, mBaseBackoffMillis << Math.min(attempt - 1, 20));
+        synchronized (mRandom) {
+            return (long) (mRandom.nextDouble() * cap);
+        }
+    }
+
+    private void retryAfter(long millis) throws InterruptedIOException {
+        mMetrics.count(Metrics.COUNT_RETRIES, 1);
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+
+    /**
+     * Returns the wait a Retry-After header asks for in milliseconds, given either in seconds
+     * or as an HTTP date, or -1 if there is no valid header
+     */
+    static long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null) {
+            return -1;
+        }
+        retryAfter = retryAfter.trim();
+        try {
+            return Math.max(0, Long.parseLong(retryAfter) * 1000);
+        } catch (NumberFormatException e) {
+            //Not seconds, try a date
+        }
+        try {
+            SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+            return Math.max(0, format.parse(retryAfter).getTime() - System.currentTimeMillis());
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+
+    private static void closeQuietly(Response response) {
+        try {
+            response.close();
+        } catch (IOException e) {
+            //The response is dropped for a retry anyway
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.android.newsapp.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of canonical strings for article fields that repeat across results and pages,
+ * like section names and contributors. Each distinct value is then held once, however many
+ * articles carry it. Once the pool is full new values are no longer added, but the ones in
+ * it are still shared, so a feed with unusually many distinct values can not grow it forever.
+ * Safe to use from several threads.
+ */
+
+public final class StringPool {
+
+    /**
+     * Rough size of a String object without its characters: object header, fields and the
+     * header of the character array
+     */
+    static final int STRING_OVERHEAD_BYTES = 40;
+
+    private final int mMaxSize;
+
+    private final Metrics mMetrics;
+
+    private final ConcurrentMap<String, String> mStrings = new ConcurrentHashMap<>();
+
+    private final AtomicInteger mSize = new AtomicInteger();
+
+    /**
+     * @param maxSize is the number of distinct strings the pool holds at most
+     * @param metrics receives the {@link Metrics#COUNT_INTERN_HITS},
+     *                {@link Metrics#COUNT_INTERN_DROPPED_BYTES},
+     *                {@link Metrics#COUNT_INTERN_ENTRIES} and
+     *                {@link Metrics#COUNT_INTERN_BYTES} counters
+     */
+    public StringPool(int maxSize, Metrics metrics) {
+        mMaxSize = maxSize;
+        mMetrics = metrics;
+    }
+
+    /**
+     * Returns the pooled string equal to the given one, adding it if it is new and the pool
+     * has room. Null is returned as is.
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = mStrings.get(value);
+        if (pooled != null) {
+            //The caller drops its copy and keeps the pooled one
+            mMetrics.count(Metrics.COUNT_INTERN_HITS, 1);
+            mMetrics.count(Metrics.COUNT_INTERN_DROPPED_BYTES, sizeOf(value));
+            return pooled;
+        }
+        if (mSize.get() >= mMaxSize) {
+            return value;
+        }
+        pooled = mStrings.putIfAbsent(value, value);
+        if (pooled != null) {
+            return pooled;
+        }
+        mSize.incrementAndGet();
+        mMetrics.count(Metrics.COUNT_INTERN_ENTRIES, 1);
+        mMetrics.count(Metrics.COUNT_INTERN_BYTES, sizeOf(value));
+        return value;
+    }
+
+    private static long sizeOf(String value) {
+        return STRING_OVERHEAD_BYTES + 2L * value.length();
+    }
+
+    //Get the number of distinct strings in the pool
+    public int size() {
+        return mSize.get();
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.android.newsapp.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * HttpTransport on top of HttpURLConnection. Once a body has been read to the end and closed,
+ * HttpURLConnection returns the socket to its keep-alive pool for the next request; closing a
+ * response with more than a small tail left disconnects it instead. Bodies are requested gzip
+ * encoded and unzipped here. Timeouts can be fixed or follow the connect and response times
+ * observed so far.
+ */
+
+public class UrlConnectionTransport implements HttpTransport {
+
+    private final AdaptiveTimeout mConnectTimeout;
+
+    private final AdaptiveTimeout mReadTimeout;
+
+    /**
+     * Create a transport with the given timeouts
+     * @param connectTimeoutMillis is how long to wait for a connection
+     * @param readTimeoutMillis is how long to wait for data once connected
+     */
+    public UrlConnectionTransport(int connectTimeoutMillis, int readTimeoutMillis) {
+        this(new AdaptiveTimeout(connectTimeoutMillis, connectTimeoutMillis, connectTimeoutMillis),
+                new AdaptiveTimeout(readTimeoutMillis, readTimeoutMillis, readTimeoutMillis));
+    }
+
+    /**
+     * Create a transport whose timeouts adapt to the network
+     * @param connectTimeout learns from the time connections take to open
+     * @param readTimeout learns from the time the response headers take to arrive
+     */
+    public UrlConnectionTransport(AdaptiveTimeout connectTimeout, AdaptiveTimeout readTimeout) {
+        mConnectTimeout = connectTimeout;
+        mReadTimeout = readTimeout;
+    }
+
+    @Override
+    public Response get(String url, Map<String, String> headers) throws IOException {
+        HttpURLConnection urlConnection = (HttpURLConnection) new URL(url).openConnection();
+        urlConnection.setReadTimeout(mReadTimeout.getMillis());
+        urlConnection.setConnectTimeout(mConnectTimeout.getMillis());
+        urlConnection.setRequestMethod("GET");
+
+        //Ask for a compressed body. Setting the header ourselves turns off transparent
+        //decompression, so the body is unzipped in getBody
+        urlConnection.setRequestProperty("Accept-Encoding", "gzip");
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            urlConnection.setRequestProperty(header.getKey(), header.getValue());
+        }
+
+        long start = System.nanoTime();
+        try {
+            urlConnection.connect();
+        } catch (SocketTimeoutException e) {
+            mConnectTimeout.onTimeout();
+            throw e;
+        }
+        mConnectTimeout.onSample(millisSince(start));
+
+        start = System.nanoTime();
+        int code;
+        try {
+            code = urlConnection.getResponseCode();
+        } catch (SocketTimeoutException e) {
+            mReadTimeout.onTimeout();
+            throw e;
+        }
+        mReadTimeout.onSample(millisSince(start));
+        return new UrlConnectionResponse(urlConnection, code);
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1000000;
+    }
+
+    private static final class UrlConnectionResponse implements Response {
+
+        /** Most bytes of an unread body that are read to keep its connection */
+        private static final int MAX_DRAIN_BYTES = 8 * 1024;
+
+        private final HttpURLConnection mConnection;
+        private final int mCode;
+        private InputStream mRawBody;
+        private InputStream mBody;
+
+        UrlConnectionResponse(HttpURLConnection connection, int code) {
+            mConnection = connection;
+            mCode = code;
+        }
+
+        @Override
+        public int getCode() {
+            return mCode;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return mConnection.getHeaderField(name);
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (mBody == null) {
+                mRawBody = mCode < 400 ? mConnection.getInputStream() : mConnection.getErrorStream();
+                if (mRawBody == null) {
+                    return null;
+                }
+                mBody = "gzip".equalsIgnoreCase(mConnection.getContentEncoding())
+                        ? new GZIPInputStream(mRawBody) : mRawBody;
+            }
+            return mBody;
+        }
+
+        /**
+         * Read what is left of a successful body before closing it, so the connection is
+         * released to the keep-alive pool. A connection is disconnected instead when more than
+         * a small tail is left, when the body is an error body, or when the thread was
+         * interrupted, as reading it all would cost more than opening a new connection.
+         */
+        @Override
+        public void close() throws IOException {
+            boolean reusable = false;
+            try {
+                if (mCode < 400 && !Thread.currentThread().isInterrupted()) {
+                    if (mRawBody == null) {
+                        mRawBody = mConnection.getInputStream();
+                    }
+                    reusable = drain(mRawBody);
+                }
+            } catch (IOException e) {
+                //The connection is broken, it is disconnected below
+            } finally {
+                if (mRawBody != null) {
+                    mRawBody.close();
+                }
+                if (!reusable) {
+                    mConnection.disconnect();
+                }
+            }
+        }
+
+        /**
+         * Returns true if the stream ended within MAX_DRAIN_BYTES
+         */
+        private static boolean drain(InputStream in) throws IOException {
+            byte[] buffer = new byte[1024];
+            int drained = 0;
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                drained += count;
+                if (drained > MAX_DRAIN_BYTES) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
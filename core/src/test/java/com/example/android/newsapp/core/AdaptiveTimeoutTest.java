@@ -0,0 +1,41 @@
+package com.example.android.newsapp.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Feeds samples and timeouts to an AdaptiveTimeout and checks the timeout it derives
+ */
+public class AdaptiveTimeoutTest {
+
+    @Test
+    public void firstSampleReplacesTheInitialTimeout() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(10000, 100, 60000);
+        assertEquals(10000, timeout.getMillis());
+
+        //Mean 400 plus four times a deviation of half of it
+        timeout.onSample(400);
+        assertEquals(1200, timeout.getMillis());
+    }
+
+    @Test
+    public void zeroSampleIsSmoothedLikeAnyOther() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(10000, 0, 60000);
+        timeout.onSample(0);
+        assertEquals(0, timeout.getMillis());
+
+        //Were a mean of 0 taken for "no sample yet", this would start over at 1200
+        timeout.onSample(400);
+        assertEquals(450, timeout.getMillis());
+    }
+
+    @Test
+    public void timeoutDoublesUpToTheCeiling() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(1000, 100, 3000);
+        timeout.onTimeout();
+        assertEquals(2000, timeout.getMillis());
+        timeout.onTimeout();
+        assertEquals(3000, timeout.getMillis());
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.android.newsapp.core;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local stand-in for the Guardian content API. /search replays the recorded
+ * guardian-search-10.json response, repeated to the requested page-size. Any other path is
+ * answered like an item request for show-fields=bodyText. Latency, bandwidth, server errors and
+ * cut off bodies can be configured, so the fetch pipeline can be tested on a laptop the way it
+ * behaves on a flaky mobile connection.
+ */
+
+public final class FakeGuardianServer {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String RECORDED_RESPONSE = "/guardian-search-10.json";
+
+    /** Bodies are written in chunks of this size, the bandwidth limit is applied per chunk */
+    private static final int CHUNK_SIZE = 1024;
+
+    private final HttpServer mServer;
+
+    private final ExecutorService mExecutor = Executors.newCachedThreadPool();
+
+    private final JsonObject mRecorded;
+
+    private final Random mRandom = new Random(42);
+
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+
+    private volatile long mDelayMillis;
+    private volatile long mBytesPerSecond;
+    private volatile double mErrorRate;
+    private volatile int mCutAfterBytes = -1;
+
+    public FakeGuardianServer() throws IOException {
+        mRecorded = readRecorded();
+        mServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        mServer.setExecutor(mExecutor);
+        mServer.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    respond(exchange);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+    }
+
+    public FakeGuardianServer start() {
+        mServer.start();
+        return this;
+    }
+
+    public void stop() {
+        mServer.stop(0);
+        mExecutor.shutdownNow();
+    }
+
+    //Get the base URL to build requests on, e.g. http://127.0.0.1:51234
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + mServer.getAddress().getPort();
+    }
+
+    //Get the number of requests answered so far
+    public int getRequestCount() {
+        return mRequestCount.get();
+    }
+
+    //Wait this long before sending the response headers
+    public FakeGuardianServer setDelayMillis(long delayMillis) {
+        mDelayMillis = delayMillis;
+        return this;
+    }
+
+    //Send bodies at most this fast, 0 for no limit
+    public FakeGuardianServer setBytesPerSecond(long bytesPerSecond) {
+        mBytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    //Answer this fraction of the requests, from 0 to 1, with 503 Service Unavailable
+    public FakeGuardianServer setErrorRate(double errorRate) {
+        mErrorRate = errorRate;
+        return this;
+    }
+
+    //End every body after this many bytes on the wire, -1 to send whole bodies
+    public FakeGuardianServer setCutAfterBytes(int cutAfterBytes) {
+        mCutAfterBytes = cutAfterBytes;
+        return this;
+    }
+
+    private void respond(HttpExchange exchange) throws IOException, InterruptedException {
+        mRequestCount.incrementAndGet();
+        Thread.sleep(mDelayMillis);
+
+        boolean error;
+        synchronized (mRandom) {
+            error = mRandom.nextDouble() < mErrorRate;
+        }
+        if (error) {
+            send(exchange, 503, "{\"message\":\"Service unavailable\"}".getBytes(UTF_8));
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        if (!"/search".equals(path)) {
+            send(exchange, 200, itemResponse(path));
+            return;
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int pageSize = parseInt(query.get("page-size"), 10);
+        int page = parseInt(query.get("page"), 1);
+        String eTag = "\"" + pageSize + "-" + page + "\"";
+        exchange.getResponseHeaders().set("ETag", eTag);
+        if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        send(exchange, 200, searchResponse(pageSize, page));
+    }
+
+    /**
+     * Send a body, gzip encoded if the client asked for it, throttled and cut as configured
+     */
+    private void send(HttpExchange exchange, int code, byte[] body) throws IOException, InterruptedException {
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+            GZIPOutputStream gzip = new GZIPOutputStream(zipped);
+            gzip.write(body);
+            gzip.close();
+            body = zipped.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+
+        int length = mCutAfterBytes >= 0 ? Math.min(mCutAfterBytes, body.length) : body.length;
+        //Chunked, so the client sees the first bytes while the rest is still being sent
+        exchange.sendResponseHeaders(code, 0);
+        OutputStream out = exchange.getResponseBody();
+        long start = System.nanoTime();
+        for (int offset = 0; offset < length; offset += CHUNK_SIZE) {
+            int count = Math.min(CHUNK_SIZE, length - offset);
+            out.write(body, offset, count);
+            out.flush();
+            long bytesPerSecond = mBytesPerSecond;
+            if (bytesPerSecond > 0) {
+                long dueMillis = (offset + count) * 1000L / bytesPerSecond;
+                long elapsedMillis = (System.nanoTime() - start) / 1000000;
+                if (dueMillis > elapsedMillis) {
+                    Thread.sleep(dueMillis - elapsedMillis);
+                }
+            }
+        }
+        out.close();
+    }
+
+    /**
+     * Returns a search response with the given number of results. The recorded results are
+     * repeated with unique ids and URLs, so the field mix is that of the real API.
+     */
+    byte[] searchResponse(int pageSize, int page) {
+        JsonObject recorded = mRecorded.deepCopy();
+        JsonObject response = recorded.getAsJsonObject("response");
+        JsonArray recordedResults = response.getAsJsonArray("results");
+
+        JsonArray results = new JsonArray();
+        for (int i = 0; i < pageSize; i++) {
+            JsonObject article = recordedResults.get(i % recordedResults.size()).getAsJsonObject().deepCopy();
+            String suffix = "-" + page + "-" + i;
+            article.addProperty("id", article.get("id").getAsString() + suffix);
+            article.addProperty("webUrl", article.get("webUrl").getAsString() + suffix);
+            article.addProperty("apiUrl", article.get("apiUrl").getAsString() + suffix);
+            results.add(article);
+        }
+        response.addProperty("pageSize", pageSize);
+        response.addProperty("currentPage", page);
+        response.add("results", results);
+        return recorded.toString().getBytes(UTF_8);
+    }
+
+    private static byte[] itemResponse(String path) {
+        JsonObject fields = new JsonObject();
+        fields.addProperty("bodyText", "Body of " + path.substring(1));
+        JsonObject content = new JsonObject();
+        content.addProperty("id", path.substring(1));
+        content.add("fields", fields);
+        JsonObject response = new JsonObject();
+        response.addProperty("status", "ok");
+        response.add("content", content);
+        JsonObject root = new JsonObject();
+        root.add("response", response);
+        return root.toString().getBytes(UTF_8);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws IOException {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return query;
+    }
+
+    private static int parseInt(String value, int fallback) {
+        try {
+            return value != null ? Integer.parseInt(value) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static JsonObject readRecorded() throws IOException {
+        InputStream in = FakeGuardianServer.class.getResourceAsStream(RECORDED_RESPONSE);
+        if (in == null) {
+            throw new IOException("Missing fixture " + RECORDED_RESPONSE);
+        }
+        try {
+            JsonElement element = new JsonParser().parse(new InputStreamReader(in, UTF_8));
+            return element.getAsJsonObject();
+        } finally {
+            in.close();
+        }
+    }
+}
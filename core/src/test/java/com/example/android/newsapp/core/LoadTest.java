@@ -0,0 +1,160 @@
+package com.example.android.newsapp.core;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drives the fetch and parse pipeline against {@link FakeGuardianServer} and reports, for each
+ * page size, the p50 and p99 time from sending a request to the first parsed article and the
+ * peak heap used while the requests ran. Run it with ./gradlew :core:loadTest.
+ * <p>
+ * The server adds latency, limits bandwidth and fails a share of the requests, roughly like a
+ * mid range mobile connection. Failed requests are counted but have no first article.
+ */
+public final class LoadTest {
+
+    private static final int[] PAGE_SIZES = {10, 50, 200};
+
+    private static final int REQUESTS_PER_PAGE_SIZE = 100;
+
+    /** Same as the app's loader, which fetches up to four queries at once */
+    private static final int CONCURRENT_REQUESTS = 4;
+
+    private static final long DELAY_MILLIS = 80;
+
+    private static final long BYTES_PER_SECOND = 256 * 1024;
+
+    private static final double ERROR_RATE = 0.05;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        FakeGuardianServer server = new FakeGuardianServer()
+                .setDelayMillis(DELAY_MILLIS)
+                .setBytesPerSecond(BYTES_PER_SECOND)
+                .setErrorRate(ERROR_RATE)
+                .start();
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+        try {
+            System.out.println(String.format(Locale.US, "%d requests per page size, %d at once, "
+                            + "%d ms latency, %d KB/s, %.0f%% errors",
+                    REQUESTS_PER_PAGE_SIZE, CONCURRENT_REQUESTS, DELAY_MILLIS,
+                    BYTES_PER_SECOND / 1024, ERROR_RATE * 100));
+            System.out.println(String.format(Locale.US, "%9s %8s %10s %10s %10s",
+                    "page size", "failed", "p50 ms", "p99 ms", "peak heap"));
+            for (int pageSize : PAGE_SIZES) {
+                run(server, executor, pageSize);
+            }
+        } finally {
+            executor.shutdownNow();
+            server.stop();
+        }
+    }
+
+    private static void run(FakeGuardianServer server, ExecutorService executor, int pageSize)
+            throws Exception {
+        final UrlConnectionTransport transport = new UrlConnectionTransport(15000, 10000);
+        final String url = new NewsQuery.Builder(server.getBaseUrl() + "/search")
+                .apiKey("test")
+                .pageSize(pageSize)
+                .build()
+                .toUrl();
+
+        System.gc();
+        resetPeakHeap();
+
+        List<Future<Long>> results = new ArrayList<>(REQUESTS_PER_PAGE_SIZE);
+        for (int i = 0; i < REQUESTS_PER_PAGE_SIZE; i++) {
+            results.add(executor.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    return timeToFirstArticle(transport, url);
+                }
+            }));
+        }
+
+        List<Long> samples = new ArrayList<>();
+        int failed = 0;
+        for (Future<Long> result : results) {
+            long nanos = result.get();
+            if (nanos < 0) {
+                failed++;
+            } else {
+                samples.add(nanos);
+            }
+        }
+        Collections.sort(samples);
+        System.out.println(String.format(Locale.US, "%9d %8d %10.1f %10.1f %8d KB",
+                pageSize, failed,
+                Metrics.toMillis(percentile(samples, 0.5)),
+                Metrics.toMillis(percentile(samples, 0.99)),
+                peakHeapBytes() / 1024));
+    }
+
+    /**
+     * Fetch and parse one page the way NewsClient does, returning the nanoseconds from sending
+     * the request to the first article, or -1 if the request failed
+     */
+    private static long timeToFirstArticle(HttpTransport transport, String url) throws IOException {
+        final long start = System.nanoTime();
+        final long[] firstArticle = {-1};
+        HttpTransport.Response response = transport.get(url, Collections.<String, String>emptyMap());
+        try {
+            if (response.getCode() != 200) {
+                return -1;
+            }
+            NewsStreamParser.parse(response.getBody(), new NewsStreamParser.ArticleListener() {
+                @Override
+                public void onArticle(News article) {
+                    if (firstArticle[0] < 0) {
+                        firstArticle[0] = System.nanoTime() - start;
+                    }
+                }
+            });
+        } finally {
+            response.close();
+        }
+        return firstArticle[0];
+    }
+
+    private static long percentile(List<Long> sorted, double fraction) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Sum of the peak usage of every heap pool since the last reset. The pools peak at
+     * different times, so this is an upper bound.
+     */
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.android.newsapp.core;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks how MultiQueryFetcher merges query results and leaves out slow or failed queries
+ */
+public class MultiQueryFetcherTest {
+
+    private final ExecutorService mExecutor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void mergeDropsDuplicateUrlsAndSortsNewestFirst() {
+        News older = article("https://a/older", 1000);
+        News newest = article("https://a/newest", 3000);
+        News shared = article("https://a/shared", 2000);
+        News sharedCopy = article("https://a/shared", 2000);
+        News undated = article("https://a/undated", PublicationDate.UNKNOWN);
+
+        List<News> merged = MultiQueryFetcher.merge(Arrays.asList(
+                Arrays.asList(older, shared, undated),
+                Arrays.asList(sharedCopy, newest)));
+
+        assertEquals(Arrays.asList(newest, shared, older, undated), merged);
+        //The first query's copy of a duplicate is kept
+        assertSame(shared, merged.get(1));
+    }
+
+    @Test
+    public void mergeKeepsTheOrderOfASingleList() {
+        List<News> articles = Arrays.asList(article("https://a/1", 1000), article("https://a/2", 2000));
+
+        assertSame(articles, MultiQueryFetcher.merge(Collections.singletonList(articles)));
+    }
+
+    @Test
+    public void resultsKeepTheQueryOrder() throws InterruptedException {
+        MultiQueryFetcher fetcher = new MultiQueryFetcher(mExecutor, 1000);
+        List<Callable<String>> queries = Arrays.asList(answer("first", 50), answer("second", 0));
+
+        assertEquals(Arrays.asList("first", "second"), fetcher.fetchAll(queries));
+    }
+
+    @Test
+    public void slowAndFailedQueriesAreLeftOut() throws InterruptedException {
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        Callable<String> slow = new Callable<String>() {
+            @Override
+            public String call() {
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    cancelled.countDown();
+                }
+                return "slow";
+            }
+        };
+        Callable<String> failing = new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                throw new Exception("Server error");
+            }
+        };
+        MultiQueryFetcher fetcher = new MultiQueryFetcher(mExecutor, 100);
+        List<Callable<String>> queries = new ArrayList<>();
+        queries.add(answer("fast", 0));
+        queries.add(slow);
+        queries.add(failing);
+        queries.add(answer(null, 0));
+
+        long start = System.nanoTime();
+        List<String> results = fetcher.fetchAll(queries);
+
+        assertEquals(Collections.singletonList("fast"), results);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        //The timed out query was cancelled instead of left running
+        assertTrue(cancelled.await(1, TimeUnit.SECONDS));
+    }
+
+    private static Callable<String> answer(final String result, final long delayMillis) {
+        return new Callable<String>() {
+            @Override
+            public String call() throws InterruptedException {
+                Thread.sleep(delayMillis);
+                return result;
+            }
+        };
+    }
+
+    private static News article(String url, long publishedMillis) {
+        return new News("Title", "News", publishedMillis, null, url);
+    }
+}
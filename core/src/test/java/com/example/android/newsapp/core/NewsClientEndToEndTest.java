@@ -0,0 +1,104 @@
+package com.example.android.newsapp.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs NewsClient over real HTTP against {@link FakeGuardianServer}
+ */
+public class NewsClientEndToEndTest {
+
+    private FakeGuardianServer mServer;
+
+    private Metrics mMetrics;
+
+    private NewsClient mClient;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new FakeGuardianServer().start();
+        mMetrics = new Metrics();
+        mClient = new NewsClient(new UrlConnectionTransport(2000, 1000), Logger.NONE, mMetrics);
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop();
+    }
+
+    private String searchUrl(int pageSize) {
+        return new NewsQuery.Builder(mServer.getBaseUrl() + "/search")
+                .apiKey("test")
+                .pageSize(pageSize)
+                .page(1)
+                .build()
+                .toUrl();
+    }
+
+    @Test
+    public void fetchReturnsEveryArticleOfThePage() {
+        NewsResponse response = mClient.fetch(searchUrl(50), null, null);
+
+        assertNotNull(response);
+        assertEquals(50, response.getArticles().size());
+        assertEquals(2148, response.getPageCount());
+        assertFalse(response.isTruncated());
+        assertNotNull(response.getETag());
+        assertEquals(50, mMetrics.getCount(Metrics.COUNT_ARTICLES));
+    }
+
+    @Test
+    public void matchingETagIsAnsweredNotModified() {
+        NewsResponse first = mClient.fetch(searchUrl(10), null, null);
+        NewsResponse second = mClient.fetch(searchUrl(10), first.getETag(), null);
+
+        assertTrue(second.isNotModified());
+        assertNull(second.getArticles());
+    }
+
+    @Test
+    public void serverErrorReturnsNull() {
+        mServer.setErrorRate(1);
+
+        assertNull(mClient.fetch(searchUrl(10), null, null));
+        assertEquals(1, mMetrics.getCount(Metrics.COUNT_ERRORS));
+    }
+
+    @Test
+    public void slowDripWithinReadTimeoutStillCompletes() {
+        mServer.setDelayMillis(200).setBytesPerSecond(16 * 1024);
+
+        NewsResponse response = mClient.fetch(searchUrl(20), null, null);
+
+        assertNotNull(response);
+        assertEquals(20, response.getArticles().size());
+    }
+
+    @Test
+    public void bodyCutOffKeepsArticlesReadBeforeTheCut() {
+        //The cut falls inside the gzip stream, which then ends half way through the results
+        mServer.setCutAfterBytes(2000);
+
+        NewsResponse response = mClient.fetch(searchUrl(50), null, null);
+
+        assertNotNull(response);
+        assertTrue(response.isTruncated());
+        assertTrue(response.getArticles().size() > 0);
+        assertTrue(response.getArticles().size() < 50);
+        assertNull(response.getETag());
+    }
+
+    @Test
+    public void fetchBodyReadsTheBodyText() {
+        String body = mClient.fetchBody(mServer.getBaseUrl() + "/world/2018/sep/05/story");
+
+        assertEquals("Body of world/2018/sep/05/story", body);
+    }
+}
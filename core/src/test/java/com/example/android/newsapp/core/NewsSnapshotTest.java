@@ -0,0 +1,122 @@
+package com.example.android.newsapp.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Writes and reads NewsSnapshot files, including damaged ones
+ */
+public class NewsSnapshotTest {
+
+    private static final List<News> ARTICLES = Arrays.asList(
+            new News("T\u00edtulo", "World news", 1511172000000L, "A Writer", "https://a/1", "https://i/1.jpg"),
+            new News("No extras", null, 0, null, "https://a/2", null));
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void fileRoundTripKeepsEveryField() throws IOException {
+        File file = new File(mFolder.getRoot(), "feed.snapshot");
+        new NewsSnapshot("key", 1234, 7, ARTICLES).writeTo(file);
+
+        NewsSnapshot read = NewsSnapshot.read(file);
+        assertEquals("key", read.getKey());
+        assertEquals(1234, read.getSavedAt());
+        assertEquals(7, read.getPageCount());
+        assertEquals(ARTICLES, read.getArticles());
+    }
+
+    @Test
+    public void writeReplacesTheFileInOneStep() throws IOException {
+        File file = new File(mFolder.getRoot(), "feed.snapshot");
+        File temp = new File(file.getPath() + ".tmp");
+        new NewsSnapshot("old", 1, 1, ARTICLES).writeTo(file);
+
+        //A write that died half way leaves its temp file, the snapshot is still whole
+        FileOutputStream partial = new FileOutputStream(temp);
+        partial.write(new byte[]{0x4e, 0x57});
+        partial.close();
+        assertEquals("old", NewsSnapshot.read(file).getKey());
+
+        new NewsSnapshot("new", 2, 1, ARTICLES.subList(0, 1)).writeTo(file);
+        NewsSnapshot read = NewsSnapshot.read(file);
+        assertEquals("new", read.getKey());
+        assertEquals(1, read.getArticles().size());
+        assertFalse(temp.exists());
+    }
+
+    @Test
+    public void readingWithAPoolSharesSectionsAndAuthors() throws IOException {
+        byte[] bytes = toBytes(new NewsSnapshot("key", 1, 1, ARTICLES));
+        Metrics metrics = new Metrics();
+        StringPool pool = new StringPool(10, metrics);
+
+        News first = NewsSnapshot.read(ByteBuffer.wrap(bytes), pool).getArticles().get(0);
+        News second = NewsSnapshot.read(ByteBuffer.wrap(bytes), pool).getArticles().get(0);
+        assertSame(first.getSection(), second.getSection());
+        assertSame(first.getAuthor(), second.getAuthor());
+
+        //The pool holds the two strings once, however often they were read
+        assertEquals(2, metrics.getCount(Metrics.COUNT_INTERN_ENTRIES));
+        assertEquals(2 * StringPool.STRING_OVERHEAD_BYTES + 2 * ("World news".length()
+                + "A Writer".length()), metrics.getCount(Metrics.COUNT_INTERN_BYTES));
+        assertEquals(2, metrics.getCount(Metrics.COUNT_INTERN_HITS));
+    }
+
+    @Test
+    public void otherVersionsAreRejected() throws IOException {
+        byte[] bytes = toBytes(new NewsSnapshot("key", 1, 1, ARTICLES));
+        ByteBuffer.wrap(bytes).putInt(4, NewsSnapshot.VERSION - 1);
+
+        assertUnreadable(bytes);
+    }
+
+    @Test
+    public void corruptInputIsRejected() throws IOException {
+        byte[] bytes = toBytes(new NewsSnapshot("key", 1, 1, ARTICLES));
+
+        //Not a snapshot at all
+        byte[] wrongMagic = bytes.clone();
+        wrongMagic[0] = 0;
+        assertUnreadable(wrongMagic);
+
+        //Cut off in the middle of an article
+        assertUnreadable(Arrays.copyOf(bytes, bytes.length - 10));
+
+        //A string length past the end of the data
+        byte[] badLength = bytes.clone();
+        ByteBuffer.wrap(badLength).putInt(8, Integer.MAX_VALUE);
+        assertUnreadable(badLength);
+
+        assertUnreadable(new byte[0]);
+    }
+
+    private static byte[] toBytes(NewsSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static void assertUnreadable(byte[] bytes) {
+        try {
+            NewsSnapshot.read(ByteBuffer.wrap(bytes));
+            fail("Read a damaged snapshot");
+        } catch (IOException expected) {
+        }
+    }
+}
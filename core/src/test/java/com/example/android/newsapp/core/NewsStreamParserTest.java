@@ -0,0 +1,96 @@
+package com.example.android.newsapp.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Feeds NewsStreamParser responses with malformed results between valid ones
+ */
+public class NewsStreamParserTest {
+
+    private final List<News> mArticles = new ArrayList<>();
+
+    private final NewsStreamParser.ArticleListener mListener = new NewsStreamParser.ArticleListener() {
+        @Override
+        public void onArticle(News article) {
+            mArticles.add(article);
+        }
+    };
+
+    @Test
+    public void resultThatIsNotAnObjectIsSkipped() throws IOException {
+        NewsStreamParser.ParseStats stats = parse(
+                result("First", "https://a/1"),
+                "\"not an article\"",
+                "[1, 2]",
+                result("Second", "https://a/2"));
+
+        assertEquals(2, mArticles.size());
+        assertEquals("First", mArticles.get(0).getTitle());
+        assertEquals("Second", mArticles.get(1).getTitle());
+        assertEquals(2, stats.getSkippedCount());
+        assertEquals(3, stats.getPageCount());
+    }
+
+    @Test
+    public void resultWithoutTitleOrUrlIsSkipped() throws IOException {
+        NewsStreamParser.ParseStats stats = parse(
+                "{\"webUrl\": \"https://a/0\"}",
+                result("First", "https://a/1"),
+                "{\"webTitle\": \"No URL\", \"sectionName\": \"World news\"}",
+                result("Second", "https://a/2"));
+
+        assertEquals(2, mArticles.size());
+        assertEquals("https://a/1", mArticles.get(0).getUrl());
+        assertEquals("https://a/2", mArticles.get(1).getUrl());
+        assertEquals(2, stats.getSkippedCount());
+    }
+
+    @Test
+    public void wrongTypedFieldsAreReadAsMissing() throws IOException {
+        NewsStreamParser.ParseStats stats = parse(
+                result("First", "https://a/1"),
+                //A required field of the wrong type skips the result
+                "{\"webTitle\": {\"text\": \"Title\"}, \"webUrl\": \"https://a/x\"}",
+                //An optional one only loses that field
+                "{\"webTitle\": \"Second\", \"webUrl\": \"https://a/2\", \"sectionName\": [\"World\"],"
+                        + " \"tags\": \"none\", \"fields\": {\"byline\": false}}",
+                result("Third", "https://a/3"));
+
+        assertEquals(3, mArticles.size());
+        News second = mArticles.get(1);
+        assertEquals("Second", second.getTitle());
+        assertNull(second.getSection());
+        assertNull(second.getAuthor());
+        assertEquals("Third", mArticles.get(2).getTitle());
+        assertEquals(1, stats.getSkippedCount());
+    }
+
+    private NewsStreamParser.ParseStats parse(String... results) throws IOException {
+        StringBuilder json = new StringBuilder("{\"response\": {\"status\": \"ok\", \"pages\": 3, \"results\": [");
+        for (int i = 0; i < results.length; i++) {
+            json.append(i > 0 ? ", " : "").append(results[i]);
+        }
+        json.append("]}}");
+
+        NewsStreamParser.ParseStats stats = new NewsStreamParser.ParseStats();
+        InputStream in = new ByteArrayInputStream(json.toString().getBytes(Charset.forName("UTF-8")));
+        NewsStreamParser.parse(in, null, mListener, stats);
+        return stats;
+    }
+
+    private static String result(String title, String url) {
+        return "{\"webTitle\": \"" + title + "\", \"webUrl\": \"" + url + "\","
+                + " \"sectionName\": \"News\", \"webPublicationDate\": \"2017-11-20T10:00:00Z\","
+                + " \"fields\": {\"byline\": \"A Writer\"}}";
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.android.newsapp.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the order PriorityExecutor runs queued tasks in and how it bounds its queue
+ */
+public class PriorityExecutorTest {
+
+    private PriorityExecutor mExecutor;
+
+    /** Holds the single worker thread until released, so tasks pile up in the queue */
+    private final CountDownLatch mRelease = new CountDownLatch(1);
+
+    private final List<String> mRun = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() {
+        mExecutor = new PriorityExecutor(1, 3, Executors.defaultThreadFactory());
+        mExecutor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws InterruptedException {
+                mRelease.await();
+                return null;
+            }
+        }, 0);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    private Future<String> submit(final String name, int priority) {
+        return mExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                mRun.add(name);
+                return name;
+            }
+        }, priority);
+    }
+
+    @Test
+    public void queuedTasksRunByPriorityThenInOrder() throws Exception {
+        submit("page", 1);
+        submit("feed", 0);
+        Future<String> last = submit("page2", 1);
+
+        mRelease.countDown();
+        last.get(1, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("feed", "page", "page2"), mRun);
+    }
+
+    @Test
+    public void fullQueueDropsTheLeastUrgentTask() throws Exception {
+        submit("a", 1);
+        Future<String> dropped = submit("b", 2);
+        submit("c", 1);
+        Future<String> urgent = submit("feed", 0);
+
+        mRelease.countDown();
+        assertEquals("feed", urgent.get(1, TimeUnit.SECONDS));
+        assertTrue(dropped.isCancelled());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void fullQueueRejectsALessUrgentTask() {
+        submit("a", 0);
+        submit("b", 0);
+        submit("c", 0);
+        submit("d", 0);
+    }
+}
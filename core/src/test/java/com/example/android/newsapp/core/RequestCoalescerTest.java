@@ -0,0 +1,141 @@
+package com.example.android.newsapp.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks how RequestCoalescer keys requests and shares one fetch between callers
+ */
+public class RequestCoalescerTest {
+
+    private static final String URL = "https://content.guardianapis.com/search?q=a&page=1";
+
+    private final RequestCoalescer<String> mCoalescer = new RequestCoalescer<>();
+
+    private final ExecutorService mExecutor = Executors.newCachedThreadPool();
+
+    @Test
+    public void normalizeIgnoresParameterOrderHostCaseAndFragment() {
+        assertEquals(
+                RequestCoalescer.normalize("https://content.guardianapis.com/search?api-key=k&q=a&page=1"),
+                RequestCoalescer.normalize("HTTPS://Content.GuardianApis.com/search?page=1&q=a&api-key=k#top"));
+    }
+
+    @Test
+    public void normalizeKeepsParameterValuesAndPathCase() {
+        assertNotEquals(
+                RequestCoalescer.normalize("https://content.guardianapis.com/search?api-key=k1&q=a"),
+                RequestCoalescer.normalize("https://content.guardianapis.com/search?api-key=k2&q=a"));
+        assertNotEquals(
+                RequestCoalescer.normalize("https://content.guardianapis.com/World"),
+                RequestCoalescer.normalize("https://content.guardianapis.com/world"));
+    }
+
+    @Test
+    public void concurrentCallersShareOneFetch() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger fetches = new AtomicInteger();
+        final Callable<String> fetch = new Callable<String>() {
+            @Override
+            public String call() throws InterruptedException {
+                fetches.incrementAndGet();
+                release.await();
+                return "articles";
+            }
+        };
+
+        Future<String> first = mExecutor.submit(execute("https://content.guardianapis.com/search?page=1&q=a", fetch));
+        awaitInFlight();
+        Future<String> second = mExecutor.submit(execute(URL, fetch));
+        Future<String> third = mExecutor.submit(execute(URL, fetch));
+        awaitHits(2);
+        release.countDown();
+
+        assertEquals("articles", first.get(1, TimeUnit.SECONDS));
+        assertEquals("articles", second.get(1, TimeUnit.SECONDS));
+        assertEquals("articles", third.get(1, TimeUnit.SECONDS));
+        assertEquals(1, fetches.get());
+        assertEquals(1, mCoalescer.getMissCount());
+        assertEquals(0, mCoalescer.getInFlightCount());
+    }
+
+    @Test
+    public void cancellingTheRunningCallerMakesWaitersFetchAgain() throws Exception {
+        final CountDownLatch leaderStarted = new CountDownLatch(1);
+        final AtomicInteger fetches = new AtomicInteger();
+        Callable<String> fetch = new Callable<String>() {
+            @Override
+            public String call() {
+                if (fetches.incrementAndGet() > 1) {
+                    return "articles";
+                }
+                //Like NewsClient, a cancelled fetch gives up and keeps the interrupt
+                leaderStarted.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }
+        };
+
+        Future<String> leader = mExecutor.submit(execute(URL, fetch));
+        assertTrue(leaderStarted.await(1, TimeUnit.SECONDS));
+        Future<String> follower = mExecutor.submit(execute(URL, fetch));
+        awaitHits(1);
+        leader.cancel(true);
+
+        assertEquals("articles", follower.get(1, TimeUnit.SECONDS));
+        assertEquals(2, fetches.get());
+        assertEquals(0, mCoalescer.getInFlightCount());
+    }
+
+    @Test
+    public void laterCallersStartANewFetch() throws Exception {
+        final AtomicInteger fetches = new AtomicInteger();
+        Callable<String> fetch = new Callable<String>() {
+            @Override
+            public String call() {
+                return fetches.incrementAndGet() == 1 ? null : "articles";
+            }
+        };
+
+        assertNull(mCoalescer.execute(URL, fetch));
+        assertEquals("articles", mCoalescer.execute(URL, fetch));
+        assertEquals(2, mCoalescer.getMissCount());
+    }
+
+    private Callable<String> execute(final String url, final Callable<String> fetch) {
+        return new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return mCoalescer.execute(url, fetch);
+            }
+        };
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        while (mCoalescer.getInFlightCount() == 0) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitHits(long hits) throws InterruptedException {
+        while (mCoalescer.getHitCount() < hits) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.android.newsapp.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs ResilientTransport over a transport that answers from a script
+ */
+public class ResilientTransportTest {
+
+    private static final Map<String, String> NO_HEADERS = Collections.emptyMap();
+
+    private ScriptedTransport mTransport;
+
+    private CircuitBreaker mBreaker;
+
+    private Metrics mMetrics;
+
+    private ResilientTransport mResilient;
+
+    @Before
+    public void setUp() {
+        mTransport = new ScriptedTransport();
+        mBreaker = new CircuitBreaker(3, 60000);
+        mMetrics = new Metrics();
+        mResilient = new ResilientTransport(mTransport, mBreaker, mMetrics, 3, 1, 10);
+    }
+
+    @Test
+    public void serverErrorsAreRetriedUntilSuccess() throws IOException {
+        mTransport.answer(503).answer(500).answer(200);
+
+        assertEquals(200, mResilient.get("url", NO_HEADERS).getCode());
+        assertEquals(3, mTransport.mRequests);
+        assertEquals(2, mMetrics.getCount(Metrics.COUNT_RETRIES));
+        assertFalse(mBreaker.isOpen());
+    }
+
+    @Test
+    public void lastFailureIsReturnedAfterMaxAttempts() throws IOException {
+        mTransport.fail().fail().answer(502);
+
+        assertEquals(502, mResilient.get("url", NO_HEADERS).getCode());
+        assertEquals(3, mTransport.mRequests);
+    }
+
+    @Test
+    public void clientErrorsAreNotRetried() throws IOException {
+        mTransport.answer(404);
+
+        assertEquals(404, mResilient.get("url", NO_HEADERS).getCode());
+        assertEquals(1, mTransport.mRequests);
+    }
+
+    @Test
+    public void longRetryAfterOpensTheCircuit() throws IOException {
+        mTransport.answer(429, "120");
+
+        assertEquals(429, mResilient.get("url", NO_HEADERS).getCode());
+        assertEquals(1, mTransport.mRequests);
+        assertTrue(mBreaker.isOpen());
+    }
+
+    @Test
+    public void openCircuitRefusesRequestsWithoutSendingThem() throws IOException {
+        mTransport.fail().fail().fail();
+        try {
+            mResilient.get("url", NO_HEADERS);
+            fail();
+        } catch (IOException expected) {
+        }
+        assertTrue(mBreaker.isOpen());
+
+        try {
+            mResilient.get("url", NO_HEADERS);
+            fail();
+        } catch (ResilientTransport.CircuitOpenException expected) {
+        }
+        assertEquals(3, mTransport.mRequests);
+        assertEquals(1, mMetrics.getCount(Metrics.COUNT_CIRCUIT_OPEN));
+    }
+
+    @Test
+    public void trialThatThrowsReleasesTheHalfOpenCircuit() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(3, 1);
+        ResilientTransport resilient = new ResilientTransport(mTransport, breaker, mMetrics, 3, 1, 10);
+        mTransport.crash().answer(200);
+        breaker.openFor(1);
+        Thread.sleep(5);
+
+        try {
+            resilient.get("url", NO_HEADERS);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        Thread.sleep(5);
+
+        assertEquals(200, resilient.get("url", NO_HEADERS).getCode());
+        assertEquals(2, mTransport.mRequests);
+    }
+
+    @Test
+    public void retryAfterIsParsedAsSecondsOrDate() {
+        assertEquals(3000, ResilientTransport.parseRetryAfter("3"));
+        assertEquals(0, ResilientTransport.parseRetryAfter("Thu, 01 Jan 1970 00:00:00 GMT"));
+        assertEquals(-1, ResilientTransport.parseRetryAfter("soon"));
+        assertEquals(-1, ResilientTransport.parseRetryAfter(null));
+    }
+
+    /**
+     * Answers requests with the scripted status codes in order, or with an exception
+     */
+    private static final class ScriptedTransport implements HttpTransport {
+
+        //Stands for a bug in the transport
+        private static final Response CRASH = new ScriptedTransport().answer(0).mScript.remove();
+
+        //Null stands for a failed connection
+        private final Deque<Response> mScript = new LinkedList<>();
+
+        private int mRequests;
+
+        ScriptedTransport answer(int code) {
+            return answer(code, null);
+        }
+
+        ScriptedTransport answer(final int code, final String retryAfter) {
+            mScript.add(new Response() {
+                @Override
+                public int getCode() {
+                    return code;
+                }
+
+                @Override
+                public String getHeader(String name) {
+                    return "Retry-After".equals(name) ? retryAfter : null;
+                }
+
+                @Override
+                public InputStream getBody() {
+                    return new ByteArrayInputStream(new byte[0]);
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+            return this;
+        }
+
+        ScriptedTransport fail() {
+            mScript.add(null);
+            return this;
+        }
+
+        ScriptedTransport crash() {
+            mScript.add(CRASH);
+            return this;
+        }
+
+        @Override
+        public Response get(String url, Map<String, String> headers) throws IOException {
+            mRequests++;
+            Response response = mScript.remove();
+            if (response == null) {
+                throw new IOException("Connection reset");
+            }
+            if (response == CRASH) {
+                throw new IllegalStateException("Transport bug");
+            }
+            return response;
+        }
+    }
+}
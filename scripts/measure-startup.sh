@@ -0,0 +1,42 @@
+#!/bin/sh
+# Cold starts the app on the connected device a number of times and prints the time to initial
+# display reported by the activity manager, and the time to full display the app logs once the
+# loaded feed is on screen. Install the build to measure first, e.g. ./gradlew installDebug
+#
+# Usage: scripts/measure-startup.sh [runs]
+
+RUNS=${1:-10}
+PACKAGE=com.example.android.newsapp
+ACTIVITY=$PACKAGE/.MainActivity
+
+initial=""
+full=""
+i=0
+while [ "$i" -lt "$RUNS" ]; do
+    i=$((i + 1))
+    adb logcat -c
+    # -S stops the app first, so every run starts a new process
+    total=$(adb shell am start -S -W -n "$ACTIVITY" | tr -d '\r' | sed -n 's/^TotalTime: //p')
+
+    # Wait up to 15 seconds for the feed to be loaded
+    fully=""
+    tries=0
+    while [ -z "$fully" ] && [ "$tries" -lt 30 ]; do
+        sleep 0.5
+        tries=$((tries + 1))
+        fully=$(adb logcat -d -s NewsApplication:I | tr -d '\r' \
+            | sed -n 's/.*Time to full display: \([0-9]*\) ms.*/\1/p' | head -n 1)
+    done
+
+    echo "run $i: initial display ${total:-?} ms, full display ${fully:-?} ms"
+    initial="$initial $total"
+    full="$full $fully"
+done
+
+# Prints the median of the given numbers
+median() {
+    echo "$@" | tr ' ' '\n' | grep -v '^$' | sort -n | awk '{ v[NR] = $1 } END { if (NR) print v[int((NR + 1) / 2)] }'
+}
+
+echo "median initial display: $(median $initial) ms"
+echo "median full display: $(median $full) ms"